@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * The Actors that have something to do right now. Greenfoot calls act() on every Actor, every
+ * act, even when most of them are only checking whether anything has changed. Actors that are
+ * usually idle (see Wakeable) can skip that, and be woken into an ActiveSet when something
+ * happens to them instead. The World calls actAll() whenever it wants the set to act - every
+ * act, or every few acts - so the cost depends on how much is going on, not on how many Actors
+ * there are.
+ *
+ * <p>Waking an Actor that is already awake does nothing, so an Actor that is woken ten times
+ * before the set acts still only acts once.</p>
+ */
+public class ActiveSet
+{
+    private ArrayList<Wakeable> awake = new ArrayList<Wakeable>();
+    private ArrayList<Wakeable> acting = new ArrayList<Wakeable>();
+    private IdentityHashMap<Wakeable, Boolean> members = new IdentityHashMap<Wakeable, Boolean>();
+
+    // Stats
+    private long woken;
+    private long acted;
+
+    /**
+     * Wake an Actor, so it acts the next time the set does.
+     */
+    public void wake (Wakeable actor)
+    {
+        if (members.put(actor, Boolean.TRUE) == null){
+            awake.add(actor);
+            woken++;
+        }
+    }
+
+    /**
+     * Call wakeAct() on everything that is awake. Anything that wants to stay awake (or is woken
+     * again while this is running) acts again next time.
+     */
+    public void actAll ()
+    {
+        // Swap the lists, so anything woken while acting goes in the next round
+        ArrayList<Wakeable> now = awake;
+        awake = acting;
+        acting = now;
+        for (int i = 0; i < now.size(); i++){
+            members.remove(now.get(i));
+        }
+        for (int i = 0; i < now.size(); i++){
+            Wakeable actor = now.get(i);
+            acted++;
+            if (actor.wakeAct()){
+                wake(actor);
+            }
+        }
+        now.clear();
+    }
+
+    /**
+     * @return int  how many Actors are awake
+     */
+    public int size ()
+    {
+        return awake.size();
+    }
+
+    /**
+     * @return String   how many times Actors have been woken, and how many times they acted
+     */
+    public String getSummary ()
+    {
+        return "woken: " + woken + "  acted: " + acted + "  awake now: " + awake.size();
+    }
+}
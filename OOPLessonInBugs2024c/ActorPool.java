@@ -0,0 +1,109 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.ArrayList;
+
+/**
+ * A pool of Actors that have been removed from the World and can be used again. Bugs, Flowers,
+ * Eggs and Dead Bugs come and go all the time - rather than making a new one (and throwing the
+ * old one away for the garbage collector to clean up), the World puts removed Actors in a pool,
+ * and takes one back out the next time it needs one. Each of these classes has a reset() method
+ * that gets a used Actor ready to show something new.
+ *
+ * <p>take() returns null when the pool is empty, so using a pool looks like this:</p>
+ * <pre>
+ * Bug view = bugPool.take();
+ * if (view == null){
+ *     view = new Bug(model);
+ * } else {
+ *     view.reset(model);
+ * }
+ * </pre>
+ *
+ * <p>The pool only holds on to a limited number of Actors, so a huge die-off doesn't leave
+ * thousands of unused Actors sitting in memory forever.</p>
+ */
+public class ActorPool<T extends Actor>
+{
+    private ArrayList<T> free = new ArrayList<T>();
+    private int maxFree;
+
+    // Stats
+    private long taken;
+    private long reused;
+    private long dropped;
+
+    /**
+     * @param maxFree   the most Actors to keep in the pool - any more are left for the garbage collector
+     */
+    public ActorPool (int maxFree)
+    {
+        this.maxFree = maxFree;
+    }
+
+    /**
+     * Take an Actor out of the pool.
+     *
+     * @return T    a used Actor (call its reset method before adding it), or null if the pool is
+     *              empty and a new one should be made
+     */
+    public T take ()
+    {
+        taken++;
+        if (free.isEmpty()){
+            return null;
+        }
+        reused++;
+        return free.remove(free.size() - 1);
+    }
+
+    /**
+     * Put an Actor that has been removed from the World into the pool.
+     */
+    public void give (T actor)
+    {
+        if (free.size() < maxFree){
+            free.add(actor);
+        } else {
+            dropped++;
+        }
+    }
+
+    /**
+     * @return long     how many Actors have had to be made new (take() returned null)
+     */
+    public long getCreated ()
+    {
+        return taken - reused;
+    }
+
+    /**
+     * @return long     how many Actors were reused from the pool
+     */
+    public long getReused ()
+    {
+        return reused;
+    }
+
+    /**
+     * @return long     how many Actors were not kept because the pool was full
+     */
+    public long getDropped ()
+    {
+        return dropped;
+    }
+
+    /**
+     * @return int  how many Actors are in the pool right now
+     */
+    public int getFree ()
+    {
+        return free.size();
+    }
+
+    /**
+     * @return String   the pool stats on one line
+     */
+    public String getSummary ()
+    {
+        return "created: " + getCreated() + "  reused: " + reused + "  free: " + free.size() + "  dropped: " + dropped;
+    }
+}
@@ -0,0 +1,97 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A list of the Actors in a World for each class of Actor, kept up to date as Actors are added
+ * and removed (DesertWorld does this from addObject() and removeObject()).
+ *
+ * <p>getObjects() builds a brand new List of every matching Actor each time it is called. With
+ * thousands of Bugs, that is a lot of copying just to count them or loop over them. Here, count()
+ * is just the size of a list that already exists, and getAll() hands back that same list, so it
+ * can be looped over (with an index) without making anything new.</p>
+ *
+ * <p>Actors are listed under their exact class only - a Bug is a Bug, and is not also listed as a
+ * SuperSmoothMover or an Actor. The lists are in no particular order.</p>
+ */
+public class ActorRegistry
+{
+    private HashMap<Class<?>, ArrayList<Actor>> lists = new HashMap<Class<?>, ArrayList<Actor>>();
+    // Where each Actor is in its list, so it can be removed without searching for it
+    private IdentityHashMap<Actor, Integer> positions = new IdentityHashMap<Actor, Integer>();
+
+    /**
+     * Add an Actor to the list for its class. Adding the same Actor twice does nothing.
+     */
+    public void add (Actor actor)
+    {
+        if (positions.containsKey(actor)){
+            return;
+        }
+        ArrayList<Actor> list = getList(actor.getClass());
+        positions.put(actor, list.size());
+        list.add(actor);
+    }
+
+    /**
+     * Take an Actor off the list for its class. The last Actor in the list is moved into its
+     * place, so nothing else has to shift down.
+     */
+    public void remove (Actor actor)
+    {
+        Integer index = positions.remove(actor);
+        if (index == null){
+            return;
+        }
+        ArrayList<Actor> list = lists.get(actor.getClass());
+        Actor last = list.remove(list.size() - 1);
+        if (last != actor){
+            list.set(index, last);
+            positions.put(last, index);
+        }
+    }
+
+    /**
+     * @param cls   the class of Actor to count (exactly - subclasses aren't included)
+     * @return int  how many of them there are
+     */
+    public int count (Class<? extends Actor> cls)
+    {
+        ArrayList<Actor> list = lists.get(cls);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Every Actor of the given class. This is the registry's own list, not a copy - it will
+     * change as Actors are added and removed, so don't add or remove Actors while looping over it,
+     * and don't change it.
+     *
+     * @param cls       the class of Actor (exactly - subclasses aren't included)
+     * @return List     the Actors of that class
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Actor> List<T> getAll (Class<T> cls)
+    {
+        return (List<T>)getList(cls);
+    }
+
+    /**
+     * @return int  how many Actors there are altogether
+     */
+    public int size ()
+    {
+        return positions.size();
+    }
+
+    private ArrayList<Actor> getList (Class<?> cls)
+    {
+        ArrayList<Actor> list = lists.get(cls);
+        if (list == null){
+            list = new ArrayList<Actor>();
+            lists.put(cls, list);
+        }
+        return list;
+    }
+}
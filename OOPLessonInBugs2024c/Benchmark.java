@@ -0,0 +1,187 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * A small microbenchmark harness, in the style of JMH. A Benchmark is one operation to be timed.
+ * The runner sets it up for each combination of bug and flower counts, warms it up so the JIT
+ * has a chance to compile it, and then measures it over several timed iterations.
+ *
+ * <p>For every run it reports the average time per operation, as well as the allocation rate
+ * (bytes per operation and MB per second) and garbage collections during the measurement - the
+ * same numbers as JMH's gc profiler. Every optimization should be checked against these.</p>
+ *
+ * <p>To write a benchmark, extend this class, do any preparation in setup() and put the work
+ * to be timed in run(). See SimBenchmarks and WorldBenchmarks. Work that changes as it runs (like
+ * a whole simulation) can start each iteration fresh in setupIteration(), and stop the iteration
+ * before it has changed too much with getMaxOpsPerIteration().</p>
+ */
+public abstract class Benchmark
+{
+    // Default run settings - each iteration runs the operation over and over for this long
+    public static final int WARMUP_ITERATIONS = 5;
+    public static final int MEASURE_ITERATIONS = 5;
+    public static final long WARMUP_MILLIS = 200;
+    public static final long MEASURE_MILLIS = 500;
+
+    // Results are added here so the JIT can't decide the work isn't needed
+    private static volatile long sink;
+
+    private String name;
+
+    public Benchmark (String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Get ready to run with the given population. Called once for each combination of
+     * parameters, before warming up. Not timed.
+     */
+    public void setup (int bugs, int flowers)
+    {
+    }
+
+    /**
+     * Get ready for one iteration (warmup or measured). Called before every iteration. Not timed,
+     * and anything it allocates isn't counted.
+     */
+    public void setupIteration ()
+    {
+    }
+
+    /**
+     * @return long  the most times to call run() in one iteration (even if there is time left),
+     *               or 0 for as many as fit in the time
+     */
+    public long getMaxOpsPerIteration ()
+    {
+        return 0;
+    }
+
+    /**
+     * Do the work to be measured once.
+     *
+     * @return int  any value that depends on the work that was done
+     */
+    public abstract int run ();
+
+    public String getName ()
+    {
+        return name;
+    }
+
+    /**
+     * Run every benchmark for every combination of bug and flower counts, and print a table
+     * of the results.
+     */
+    public static void runAll (Benchmark[] benchmarks, int[] bugCounts, int[] flowerCounts)
+    {
+        System.out.println(String.format("%-36s %7s %8s %14s %12s %10s %6s %8s",
+                "Benchmark", "bugs", "flowers", "ns/op", "B/op", "MB/s", "gc", "gc ms"));
+        for (Benchmark b : benchmarks){
+            for (int bugs : bugCounts){
+                for (int flowers : flowerCounts){
+                    b.setup(bugs, flowers);
+                    b.measure(WARMUP_ITERATIONS, WARMUP_MILLIS); // results are thrown away
+                    Result r = b.measure(MEASURE_ITERATIONS, MEASURE_MILLIS);
+                    System.out.println(String.format("%-36s %7d %8d %14.1f %12.1f %10.1f %6d %8d",
+                            b.getName(), bugs, flowers, r.nanosPerOp(), r.bytesPerOp(), r.megabytesPerSecond(),
+                            r.gcCount, r.gcMillis));
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the operation over and over for a number of timed iterations.
+     */
+    private Result measure (int iterations, long millisPerIteration)
+    {
+        Result result = new Result();
+        long maxOps = getMaxOpsPerIteration();
+        for (int i = 0; i < iterations; i++){
+            setupIteration();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long stop = start + millisPerIteration * 1000000L;
+            long now;
+            long ops = 0;
+            int total = 0;
+            do {
+                total += run();
+                ops++;
+                now = System.nanoTime();
+            } while (now < stop && ops != maxOps);
+            long bytesAfter = allocatedBytes();
+            sink += total;
+            result.ops += ops;
+            result.nanos += now - start;
+            result.bytes = bytesBefore < 0 ? -1 : result.bytes + bytesAfter - bytesBefore;
+            result.gcCount += gcCount() - gcCountBefore;
+            result.gcMillis += gcMillis() - gcMillisBefore;
+        }
+        return result;
+    }
+
+    /**
+     * Bytes allocated by this thread so far, or -1 if this JVM can't tell us.
+     */
+    private static long allocatedBytes ()
+    {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long gcCount ()
+    {
+        long count = 0;
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean gc : beans){
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis ()
+    {
+        long millis = 0;
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean gc : beans){
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * The totals from one set of measured iterations.
+     */
+    private static class Result
+    {
+        long ops;
+        long nanos;
+        long bytes;
+        long gcCount;
+        long gcMillis;
+
+        double nanosPerOp ()
+        {
+            return (double)nanos / ops;
+        }
+
+        double bytesPerOp ()
+        {
+            return bytes < 0 ? Double.NaN : (double)bytes / ops;
+        }
+
+        double megabytesPerSecond ()
+        {
+            return bytes < 0 ? Double.NaN : (bytes / (1024.0 * 1024.0)) / (nanos / 1000000000.0);
+        }
+    }
+}
@@ -1,273 +1,176 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
-import java.util.ArrayList;
 
-public class Bug extends SuperSmoothMover
+/**
+ * The Greenfoot view of a Bug. All of the rules for how a Bug behaves (eating, moving, laying
+ * eggs, dying) live in SimBug, which is run by the World's BugSimulation. This class just makes
+ * one visible - each act it copies its SimBug's position and rotation, and keeps the energy
+ * bar up to date.
+ */
+public class Bug extends SuperSmoothMover implements SimView
 {
     private static GreenfootImage littleImage, bigImage;
 
     // Instance variables - Class variables
-    private Flower targetFlower;
-    private ArrayList<Flower> flowers;
+    private SimBug model;
     private SuperStatBar energyBar;
-    private int energy;
-    private int maxEnergy;
-
-    private double mySpeed = 2.0;
-    private int myAge;
-    private int myActNumber;
-
-    // Static variables
-    private static int nextActNumber = -1;
-
-    /**
-     * Primary constructor for Bug - creates a new Bug with full HP.
-     * This is called by the Spawn button, and used for creating the 
-     * first bug at the beginning of the simulation.
-     */
-    public Bug ()
-    {
-        maxEnergy = DesertWorld.BUG_MAX_HP; 
-        energy = maxEnergy;
-        if (DesertWorld.SHOW_BARS) {
-            energyBar =  new SuperStatBar (maxEnergy, energy, this, 40, 8, -32, Color.GREEN, Color.RED, true, Color.YELLOW, 1); // Construct a new HP bar with myself (this)   
-        }
-        myAge = 0;
-        myActNumber = getNextActNumber();
-        setImage(littleImage);
-    }
+    private int zIndex = -1;
+    private TaskScheduler.Task barTask;
 
     /**
-     * An additional constructor used specifically for Bugs that are to be
-     * spawned without full hit points (hatched from eggs... hungry!)
+     * Create a Bug to show the given SimBug on the screen.
      */
-    public Bug (double percentHealth)
+    public Bug (SimBug model)
     {
-        maxEnergy = DesertWorld.BUG_MAX_HP; 
-        energy = (int) ((double)maxEnergy * percentHealth); // Assign a percentage of max health
+        this.model = model;
         if (DesertWorld.SHOW_BARS) {
-            energyBar =  new SuperStatBar (maxEnergy, energy, this, 40, 8, -32, Color.GREEN, Color.RED, true, Color.YELLOW, 1); // Construct a new HP bar with myself (this)
+            energyBar =  new SuperStatBar (model.getMaxEnergy(), model.getEnergy(), this, 40, 8, -32, Color.GREEN, Color.RED, true, Color.YELLOW, 1); // Construct a new HP bar with myself (this)   
+            energyBar.setReactive(true); // moved by act() below, only after this Bug moves
         }
-        // As the target to follow around
-        myAge = 0;
-        myActNumber = getNextActNumber();
-        //System.out.println("Spawned: " + myActNumber);
-        if (Greenfoot.getRandomNumber(5)==1){
+        if (model.isBig()){
             setImage(bigImage);
-            mySpeed += ((double)Greenfoot.getRandomNumber(DesertWorld.ODDS_OF_BIG))/10.0;
         } else {
             setImage(littleImage);
         }
-    }
-
-    public static void init () {
-        littleImage = new GreenfootImage ("ladybug_02.png");
-        littleImage.scale((int)(littleImage.getWidth()*3.0/4.0), (int)(littleImage.getHeight()*3.0/4.0));
-        bigImage = new GreenfootImage ("ladybug_02.png");
-
-    }
-
-    /**
-     * Called later in the program when act numbers may no longer be
-     * evenly distributed.
-     */
-    public void refreshActNumber() {
-        myActNumber = getNextActNumber();
+        if (DesertWorld.BUG_ROTATION_STEP > 0){
+            // Share pre-rotated images instead of having Greenfoot rotate every Bug every time it draws
+            enableRotationCache(DesertWorld.BUG_ROTATION_STEP);
+        }
     }
 
     /**
-     * Static method to reset act number at 1 so giving them out can start again.
-     * (remember 0 is reserved)
+     * Get a used Bug (from an ActorPool) ready to show a new SimBug, as if it had just been
+     * made. Call this before adding it to the World.
      */
-    public static void resetActDistribution(){
-        nextActNumber = 1;
+    public void reset (SimBug newModel)
+    {
+        model = newModel;
+        zIndex = -1;
+        if (DesertWorld.SHOW_BARS){
+            energyBar.reset(model.getMaxEnergy(), model.getEnergy());
+        }
+        GreenfootImage image = model.isBig() ? bigImage : littleImage;
+        if (getImage() != image){
+            setImage(image);
+        }
     }
 
     /**
-     * This static method gives out Act numbers. The nextActNumber
-     * variable is static, so all Bugs share it. We start at 1 instead
-     * of 0, as we will leave acts where actCount % 60 == 0 for stat
-     * updates, flower spawning, and z-sorts.
+     * Called when this Bug is taken out of the World to be pooled - stop updating the energy
+     * bar and take it out of the World too. The bar's Task is kept, to be rescheduled when
+     * this Bug is used again.
      */
-    private static int getNextActNumber () {
-        if (nextActNumber == -1){
-            nextActNumber = 1;
-        }
-        if (nextActNumber == 30){
-            nextActNumber = 31; // skip 30 -> reserved for mid-cycle UI refresh
+    public void release ()
+    {
+        if (barTask != null){
+            barTask.cancel();
         }
-        if (nextActNumber > 59){
-            nextActNumber = 1; // goes back to 1 - Zero (0) is reserved for UI refresh
+        if (energyBar != null && energyBar.getWorld() != null){
+            energyBar.getWorld().removeObject(energyBar);
         }
-        return nextActNumber++;
+        model = null;
+    }
+
+    public static void init () {
+        littleImage = ImageRegistry.getLadybug(false);
+        bigImage = ImageRegistry.getLadybug(true);
     }
 
     /**
      * Method automatically called by Greenfoot when an object of this
-     * class is added to the World
+     * class is added to the World. This Bug may have been taken out and put
+     * back without being released (e.g. by Util.zSort), so the energy bar and
+     * its update job might already be there. The update job is only made the first
+     * time - after that, the same one is rescheduled.
      * 
      * @param World This parameter is the World being added to.
      */
     public void addedToWorld (World w)
     {
-        targetClosestFlower();
+        setLocation(model.getPreciseX(), model.getPreciseY());
+        setRotation(model.getPreciseRotation());
         if (DesertWorld.SHOW_BARS) 
         {
-            w.addObject (energyBar, getX(), getY());
-            energyBar.update(maxEnergy);
+            if (energyBar.getWorld() == null){
+                w.addObject (energyBar, getX(), getY());
+            }
+            energyBar.update(model.getEnergy());
+            if (w instanceof DesertWorld){
+                TaskScheduler scheduler = ((DesertWorld)w).getScheduler();
+                if (barTask == null){
+                    barTask = scheduler.schedule(() -> updateBar(), DesertWorld.BUG_BAR_PERIOD, DesertWorld.BUG_BAR_TOLERANCE);
+                } else {
+                    scheduler.reschedule(barTask);
+                }
+            }
         }
     }
 
     /**
-     * Act - do whatever the Bug wants to do. This method is called whenever
-     * the 'Act' or 'Run' button gets pressed in the environment.
+     * Act - catch up with my SimBug. The BugSimulation has already run this
+     * act's rules by the time this is called.
      */
     public void act() 
     {
-        myAge++; // increase my age - used for tracking statistics
-        if (energy > 0) 
-        {
-            if (targetFlower != null && targetFlower.getWorld() == null){
-                targetFlower = null;
-            }
-            energy -= DesertWorld.BUG_DEATH_RATE;
-            if (DesertWorld.getActNumber() == myActNumber) // Only run on my assigned act number to save time
-            {
-                // re-target
-                if (targetFlower == null || DesertWorld.getDistance (this, targetFlower) > 20){
-                    targetClosestFlower ();
-                }
-
-            }
-            // If I'm not a newborn, and I manage to get to full HP, lay an egg
-            if (energy >= maxEnergy && myAge > 100)
-            {
-                layEgg ();
-            }
-            // If bars are enabled, update them every 6 acts
-            if (DesertWorld.SHOW_BARS && myAge % 6 == 0){
-                energyBar.update(energy);
-            }
-
-            // If my current target Flower exists, move toward it
-            if (targetFlower != null)
-            {
-                moveTowardOrEatFlower();
-            }
-            // If I can't find anything to eat, move in a random direction
-            else
-            {
-                moveRandomly();
-            }
-
+        setLocation(model.getPreciseX(), model.getPreciseY());
+        if (model.getPreciseRotation() != getPreciseRotation()){
+            setRotation(model.getPreciseRotation());
         }
-        // Death:
-        else
-        {
-            DesertWorld d = (DesertWorld)getWorld(); // Access the World
-            d.addObject(new DeadBug(), getX(), getY()); // Place a skull in my place
-            d.addDeath(myAge); // Add to stats
-            getWorld().removeObject(this); // Remove myself
+        if (DesertWorld.SHOW_BARS){
+            energyBar.moveMe();
         }
-
-    }    
+        // If bars are enabled, update them every 6 acts (the World's scheduler does this, if there is one)
+        if (DesertWorld.SHOW_BARS && (barTask == null || barTask.isCancelled()) && model.getAge() % 6 == 0){
+            energyBar.update(model.getEnergy());
+        }
+        TickProfiler.mark(TickProfiler.BUG);
+    }
 
     /**
-     * Private method, called by act(), that constantly checks for closer targets
+     * Scheduled job - update the energy bar, or stop if this Bug has been removed.
      */
-    private void targetClosestFlower ()
+    private void updateBar ()
     {
-        double closestTargetDistance = 0;
-        double distanceToActor;
-        // Get a list of all Flowers in the World, cast it to ArrayList
-        // for easy management
-
-        flowers = (ArrayList<Flower>)getObjectsInRange(40, Flower.class);
-        if (flowers.size() == 0){
-
-            flowers = (ArrayList<Flower>)getObjectsInRange(150, Flower.class);
-        } 
-        if (flowers.size() == 0){
-
-            flowers = (ArrayList<Flower>)getObjectsInRange(300, Flower.class);
-        } 
-        if (flowers.size() == 0){
-            //flowers = (ArrayList<Flower>)getWorld().getObjects(Flower.class);
-        } 
-
-        if (flowers.size() > 0)
-        {
-            // set the first one as my target
-            targetFlower = flowers.get(0);
-            // Use method to get distance to target. This will be used
-            // to check if any other targets are closer
-            closestTargetDistance = DesertWorld.getDistance (this, targetFlower);
-
-            // Loop through the objects in the ArrayList to find the closest target
-            for (Flower o : flowers)
-            {
-                // Cast for use in generic method
-                //Actor a = (Actor) o;
-                // Measure distance from me
-                distanceToActor = DesertWorld.getDistance(this, o);
-                // If I find a Flower closer than my current target, I will change
-                // targets
-                if (distanceToActor < closestTargetDistance)
-                {
-                    targetFlower = o;
-                    closestTargetDistance = distanceToActor;
-                }
-            }
-            turnTowards(targetFlower.getX(), targetFlower.getY());
+        if (getWorld() == null){
+            barTask.cancel();
+            return;
         }
+        energyBar.update(model.getEnergy());
+        TickProfiler.mark(TickProfiler.BAR_UPDATES);
     }
 
     /**
-     * Private method, called by act(), that moves toward the target,
-     * or eats it if within range.
+     * @return SimBug   the SimBug that this Bug is showing
      */
-    private void moveTowardOrEatFlower ()
+    public SimBug getModel ()
     {
-
-        //if (this.getNeighbours (30, true, Flower.class).size() > 0)
-        if (DesertWorld.getDistance (this, targetFlower) < 18)
-        {
-            /**
-            // If I was able to eat, increase by life by flower's nibble power
-            int tryToEat = targetFlower.nibble();
-            if (tryToEat > 0 && energy < maxEnergy)
-            {
-            energy += tryToEat;
-            }*/
-            energy += targetFlower.nibble();
-        }
-        else
-        {
-            move (mySpeed);
-        }
+        return model;
     }
 
     /**
-     * A method to be used for moving randomly if no target is found. Will mostly
-     * just move in its current direction, occasionally turning to face a new, random
-     * direction.
+     * Switch to showing a different SimBug (used by the z-sort, see ZSorter).
      */
-    private void moveRandomly ()
+    public void setModel (SimEntity newModel)
     {
-        if (Greenfoot.getRandomNumber (100) == 50)
-        {
-            turn (Greenfoot.getRandomNumber(360));
+        model = (SimBug)newModel;
+        model.setView(this);
+        GreenfootImage image = model.isBig() ? bigImage : littleImage;
+        if (getImage() != image){
+            setImage(image);
+        }
+        setLocation(model.getPreciseX(), model.getPreciseY());
+        setRotation(model.getPreciseRotation());
+        if (DesertWorld.SHOW_BARS){
+            energyBar.update(model.getEnergy());
         }
-        else
-            move (mySpeed);
     }
 
-    /**
-     * Method to spawn an Egg - reduces HP of this Bug by 30%
-     */
-    private void layEgg ()
+    public int getZIndex ()
+    {
+        return zIndex;
+    }
+
+    public void setZIndex (int index)
     {
-        getWorld().addObject (new Egg (), getX(), getY());
-        // Lose 30% food life when laying an egg
-        energy -= (int)(energy * 0.30);
+        zIndex = index;
     }
 }
@@ -0,0 +1,795 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Every Bug in a BugSimulation, stored as a "structure of arrays": instead of each Bug being its
+ * own object with its own fields, there is one array per field (position, heading, energy, age,
+ * speed...) and each Bug is just a slot number in all of them. A SimBug is a small handle that
+ * remembers its slot.
+ *
+ * <p>This keeps everything that is needed every tick packed together in memory, so 100,000 Bugs
+ * can be updated with a few tight loops over primitive arrays (which the JIT can vectorise)
+ * instead of chasing a pointer to every Bug. Each tick is done in three steps:</p>
+ * <ol>
+ *  <li>ageAndDecay() - every Bug gets older and burns some energy</li>
+ *  <li>decide() - first every Bug works out what it wants to do (its "intent"): die, retarget,
+ *      lay an egg, and eat, move or wander. Then, one Bug at a time, in order, the intents are
+ *      carried out. This is the only step that touches other things.</li>
+ *  <li>moveAll() - every Bug that chose to move takes its step</li>
+ * </ol>
+ * <p>Bugs never look at each other's positions, and nothing else moves during step 2, so doing
+ * all of the moving at the end gives exactly the same results as moving one Bug at a time.</p>
+ *
+ * <p>Working out intents only reads the Flowers (which don't move, appear or disappear during
+ * step 2) and only writes to each Bug's own slot, so with setParallel(true) it is split up
+ * between all of the computer's cores. Carrying the intents out - nibbling Flowers, laying Eggs,
+ * dying and any random numbers - always happens in slot order on one thread, so the results are
+ * exactly the same either way.</p>
+ *
+ * <p>Slots are kept in the order Bugs were added. Bugs that are removed keep their slot until
+ * the end of the tick, when removeDead() closes the gaps.</p>
+ *
+ * <p>Bugs don't keep checking on their target Flower. A Bug heading straight for the closest
+ * Flower stays closest to it until something changes, so the Flowers tell the population when
+ * something does:</p>
+ * <ul>
+ *  <li>flowerRemoved() - the Flower was eaten or bombed. Only the Bugs that were heading for it
+ *      (its subscribers) look for a new one, at the start of the next decide().</li>
+ *  <li>flowerAdded() - only the Bugs within range of the new Flower check whether it is closer
+ *      than what they are heading for.</li>
+ * </ul>
+ * <p>Bugs with no target at all still look around on their own act number (1 - 59, skipping 30),
+ * since wandering can bring a Flower into range. That search covers the whole range, so it costs
+ * much more than a Bug that already has a target. The population keeps track of what each Bug costs
+ * on its act number (in grid cells searched), and the total for each act number. New Bugs are given
+ * the act number with the lowest total, which keeps the work spread evenly as Bugs are born and
+ * die.</p>
+ */
+public class BugPopulation
+{
+    private static final int STARTING_CAPACITY = 64;
+
+    // How far away a Bug is able to see a Flower
+    private static final int FLOWER_SEARCH_RANGE = 300;
+
+    // Intents - what each Bug has decided to do this tick
+    private static final byte DIE = 0;
+    private static final byte EAT = 1;
+    private static final byte MOVE = 2;
+    private static final byte WANDER = 3; // no target - move, or sometimes turn in a random direction
+
+    // Working out intents is only split between cores when there are at least this many Bugs,
+    // in pieces of this size - below that it isn't worth the overhead
+    public static final int PARALLEL_THRESHOLD = 2048;
+    private static final int PARALLEL_CHUNK = 512;
+
+    // Act numbers given to Bugs - 0 and 30 are reserved for UI refresh
+    private static final int ACT_NUMBERS = 60;
+
+    private BugSimulation sim;
+    private int size;
+    private boolean anyRemoved;
+    private boolean parallel;
+
+    // How many Bugs have each act number, and the total retarget cost of those Bugs
+    private int[] bucketCounts = new int[ACT_NUMBERS];
+    private long[] bucketLoads = new long[ACT_NUMBERS];
+    private int lastBucket;
+
+    // Bugs whose target was removed, to retarget at the start of the next decide()
+    private ArrayList<SimBug> woken = new ArrayList<SimBug>();
+    // Scratch space for the Bugs near a new Flower
+    private ArrayList<SimBug> nearby = new ArrayList<SimBug>();
+
+    // Position and heading, tracked the same way as SuperSmoothMover
+    private double[] exactX;
+    private double[] exactY;
+    private int[] x;
+    private int[] y;
+    private double[] rotation;
+    private double[] cos;
+    private double[] sin;
+
+    // Bug stats
+    private int[] energy;
+    private int[] maxEnergy;
+    private int[] age;
+    private int[] actNumber;
+    private int[] retargetCost;
+    private double[] speed;
+    private boolean[] big;
+    private SimFlower[] target;
+    private int[] subscriberIndex; // where this Bug is in its target's list of subscribers
+    private SimBug[] handles;
+
+    // Working space for each tick
+    private boolean[] dying;
+    private double[] step;
+    private byte[] intent;
+    private boolean[] laysEgg;
+    private int[] costChange;
+    private boolean[] foundTarget;
+
+    public BugPopulation (BugSimulation sim)
+    {
+        this.sim = sim;
+        int capacity = STARTING_CAPACITY;
+        exactX = new double[capacity];
+        exactY = new double[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        rotation = new double[capacity];
+        cos = new double[capacity];
+        sin = new double[capacity];
+        energy = new int[capacity];
+        maxEnergy = new int[capacity];
+        age = new int[capacity];
+        actNumber = new int[capacity];
+        retargetCost = new int[capacity];
+        speed = new double[capacity];
+        big = new boolean[capacity];
+        target = new SimFlower[capacity];
+        subscriberIndex = new int[capacity];
+        handles = new SimBug[capacity];
+        dying = new boolean[capacity];
+        step = new double[capacity];
+        intent = new byte[capacity];
+        laysEgg = new boolean[capacity];
+        costChange = new int[capacity];
+        foundTarget = new boolean[capacity];
+    }
+
+    /**
+     * Give a new Bug a slot. Its location is set separately with setLocation(), and it has no act
+     * number until assignActNumber() is called.
+     *
+     * @return int  the slot number for the new Bug
+     */
+    public int add (SimBug handle, int startingEnergy, int startingMaxEnergy, double startingSpeed, boolean isBig)
+    {
+        if (size == handles.length){
+            grow();
+        }
+        int i = size++;
+        handles[i] = handle;
+        energy[i] = startingEnergy;
+        maxEnergy[i] = startingMaxEnergy;
+        speed[i] = startingSpeed;
+        big[i] = isBig;
+        actNumber[i] = 0;
+        retargetCost[i] = 0;
+        age[i] = 0;
+        target[i] = null;
+        exactX[i] = 0;
+        exactY[i] = 0;
+        x[i] = 0;
+        y[i] = 0;
+        setRotation(i, 0);
+        dying[i] = false;
+        step[i] = 0;
+        return i;
+    }
+
+    /**
+     * Mark a Bug as removed. It keeps its slot (and does nothing) until removeDead() is called.
+     */
+    public void markRemoved (int i)
+    {
+        if (actNumber[i] != 0){
+            bucketCounts[actNumber[i]]--;
+            bucketLoads[actNumber[i]] -= retargetCost[i];
+        }
+        if (target[i] != null){
+            unsubscribe(i);
+        }
+        step[i] = 0;
+        anyRemoved = true;
+    }
+
+    /**
+     * Step 1: every Bug gets older, and Bugs with energy left burn some of it. Bugs that were
+     * already out of energy are marked as dying.
+     */
+    public void ageAndDecay (int count)
+    {
+        int rate = sim.getBugDeathRate();
+        for (int i = 0; i < count; i++){
+            age[i]++;
+            int e = energy[i];
+            dying[i] = e <= 0;
+            energy[i] = e > 0 ? e - rate : e;
+        }
+    }
+
+    /**
+     * Step 2: each Bug decides what to do this tick. Moving is left for moveAll() by setting
+     * how far each Bug should step.
+     */
+    public void decide (int count)
+    {
+        retargetWoken();
+        if (parallel && count >= PARALLEL_THRESHOLD){
+            ForkJoinPool.commonPool().invoke(new SenseTask(0, count));
+        } else {
+            sense(0, count);
+        }
+        commit(count);
+    }
+
+    /**
+     * Step 2, part 1: work out the intent of each Bug from start to end - 1. This only reads
+     * the Flowers, and only writes to each Bug's own slot, so different ranges can be worked
+     * out at the same time.
+     */
+    private void sense (int start, int end)
+    {
+        int currentActNumber = sim.getActNumber();
+        for (int i = start; i < end; i++){
+            laysEgg[i] = false;
+            costChange[i] = 0;
+            foundTarget[i] = false;
+            if (!handles[i].isAlive()){
+                continue;
+            }
+            // Death:
+            if (dying[i]){
+                intent[i] = DIE;
+                continue;
+            }
+
+            // Only look around on my assigned act number to save time, and only if I have nowhere
+            // to go - a target is only ever taken away by flowerRemoved()
+            if (target[i] == null && currentActNumber == actNumber[i])
+            {
+                findClosestFlower(i);
+                // The Flower's subscribers and the bucket totals are shared, so they are only
+                // updated in commit()
+                foundTarget[i] = target[i] != null;
+                int cost = getBucketCost(i);
+                costChange[i] = cost - retargetCost[i];
+                retargetCost[i] = cost;
+            }
+            // If I'm not a newborn, and I manage to get to full HP, lay an egg
+            laysEgg[i] = energy[i] >= maxEnergy[i] && age[i] > 100;
+
+            // If my current target Flower exists, move toward it or eat it
+            if (target[i] != null)
+            {
+                intent[i] = getDistanceSquared(i, target[i]) < 18 * 18 ? EAT : MOVE;
+            }
+            // If I can't find anything to eat, move in a random direction
+            else
+            {
+                intent[i] = WANDER;
+            }
+        }
+    }
+
+    /**
+     * Step 2, part 2: carry out every Bug's intent, one at a time in slot order.
+     */
+    private void commit (int count)
+    {
+        for (int i = 0; i < count; i++){
+            step[i] = 0;
+            if (!handles[i].isAlive()){
+                continue;
+            }
+            bucketLoads[actNumber[i]] += costChange[i];
+            if (foundTarget[i]){
+                subscribe(i);
+            }
+            if (intent[i] == DIE){
+                sim.addDeadBug(new SimDeadBug(sim), x[i], y[i]); // Place a skull in my place
+                sim.addDeath(age[i]); // Add to stats
+                sim.removeBug(handles[i], false); // Remove myself
+                continue;
+            }
+            if (laysEgg[i])
+            {
+                sim.addEgg(new SimEgg(sim), x[i], y[i]);
+                sim.logEvent(EventLog.EGG_LAID, x[i], y[i], age[i]);
+                // Lose 30% food life when laying an egg
+                energy[i] -= (int)(energy[i] * 0.30);
+            }
+            if (intent[i] == EAT)
+            {
+                int gained = target[i].nibble();
+                energy[i] += gained;
+                sim.logEvent(EventLog.NIBBLE, x[i], y[i], gained);
+            }
+            else if (intent[i] == MOVE)
+            {
+                step[i] = speed[i];
+            }
+            else
+            {
+                if (sim.getRandomNumber(100) == 50)
+                {
+                    turn(i, sim.getRandomNumber(360));
+                }
+                else
+                {
+                    step[i] = speed[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out the intents for a range of Bugs, splitting the range in half (and working
+     * out each half at the same time) until the pieces are small enough.
+     */
+    private class SenseTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private int start;
+        private int end;
+
+        SenseTask (int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute ()
+        {
+            if (end - start <= PARALLEL_CHUNK){
+                sense(start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new SenseTask(start, middle), new SenseTask(middle, end));
+            }
+        }
+    }
+
+    /**
+     * @param parallel  true to work out Bug intents on all cores when there are enough Bugs
+     */
+    public void setParallel (boolean parallel)
+    {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel ()
+    {
+        return parallel;
+    }
+
+    /**
+     * Step 3: every Bug moves forward by the step chosen in decide() (zero for Bugs that ate,
+     * turned or died). The first loop is pure arithmetic on arrays; the second works out the
+     * whole number locations and tells the bug grid about any Bug that changed pixels.
+     */
+    public void moveAll (int count)
+    {
+        for (int i = 0; i < count; i++){
+            exactX[i] = exactX[i] + cos[i] * step[i];
+            exactY[i] = exactY[i] + sin[i] * step[i];
+        }
+        SpatialGrid<SimBug> grid = sim.getBugGrid();
+        for (int i = 0; i < count; i++){
+            if (step[i] == 0){
+                continue;
+            }
+            int newX = sim.limitX((int)(exactX[i] + 0.5));
+            int newY = sim.limitY((int)(exactY[i] + 0.5));
+            if (newX != x[i] || newY != y[i]){
+                grid.move(handles[i], x[i], y[i], newX, newY);
+                x[i] = newX;
+                y[i] = newY;
+            }
+        }
+    }
+
+    /**
+     * Close up the slots of any Bugs that were removed, keeping everyone else in order.
+     */
+    public void removeDead ()
+    {
+        if (!anyRemoved){
+            return;
+        }
+        anyRemoved = false;
+        int kept = 0;
+        for (int i = 0; i < size; i++){
+            SimBug h = handles[i];
+            if (!h.isAlive()){
+                h.setSlot(-1);
+                continue;
+            }
+            if (kept != i){
+                handles[kept] = h;
+                exactX[kept] = exactX[i];
+                exactY[kept] = exactY[i];
+                x[kept] = x[i];
+                y[kept] = y[i];
+                rotation[kept] = rotation[i];
+                cos[kept] = cos[i];
+                sin[kept] = sin[i];
+                energy[kept] = energy[i];
+                maxEnergy[kept] = maxEnergy[i];
+                age[kept] = age[i];
+                actNumber[kept] = actNumber[i];
+                retargetCost[kept] = retargetCost[i];
+                speed[kept] = speed[i];
+                big[kept] = big[i];
+                target[kept] = target[i];
+                subscriberIndex[kept] = subscriberIndex[i];
+                h.setSlot(kept);
+            }
+            kept++;
+        }
+        Arrays.fill(handles, kept, size, null);
+        Arrays.fill(target, kept, size, null);
+        size = kept;
+    }
+
+    /**
+     * Give a Bug the act number with the lowest total retarget cost. Ties go to the next act
+     * number after the last one given out, so Bugs that cost the same are still spread around.
+     * Call this once, after the Bug's first targetClosestFlower(), so its cost is known.
+     */
+    public void assignActNumber (int i)
+    {
+        int best = -1;
+        for (int k = 1; k <= ACT_NUMBERS; k++){
+            int n = (lastBucket + k) % ACT_NUMBERS;
+            if (n == 0 || n == 30){
+                continue;
+            }
+            if (best == -1 || bucketLoads[n] < bucketLoads[best]){
+                best = n;
+            }
+        }
+        lastBucket = best;
+        actNumber[i] = best;
+        bucketCounts[best]++;
+        bucketLoads[best] += retargetCost[i];
+    }
+
+    /**
+     * Target the closest Flower, using the simulation's flower grid.
+     */
+    public void targetClosestFlower (int i)
+    {
+        SimFlower old = target[i];
+        SimFlower closest = sim.getFlowerGrid().getNearest(x[i], y[i], FLOWER_SEARCH_RANGE);
+        if (closest != null && closest != old){
+            if (old != null){
+                unsubscribe(i);
+            }
+            aimAt(i, closest);
+            subscribe(i);
+        }
+        updateBucketCost(i);
+    }
+
+    /**
+     * Target the closest Flower (if there is one in range) without touching anything shared,
+     * so it is safe to call from sense().
+     */
+    private void findClosestFlower (int i)
+    {
+        SimFlower closest = sim.getFlowerGrid().getNearest(x[i], y[i], FLOWER_SEARCH_RANGE);
+        if (closest != null)
+        {
+            aimAt(i, closest);
+        }
+    }
+
+    private void aimAt (int i, SimFlower flower)
+    {
+        target[i] = flower;
+        setRotation(i, Math.toDegrees(Math.atan2(flower.getY() - y[i], flower.getX() - x[i])));
+    }
+
+    private void subscribe (int i)
+    {
+        subscriberIndex[i] = target[i].subscribe(handles[i]);
+    }
+
+    private void unsubscribe (int i)
+    {
+        SimBug moved = target[i].unsubscribe(subscriberIndex[i]);
+        if (moved != null){
+            subscriberIndex[moved.getSlot()] = subscriberIndex[i];
+        }
+    }
+
+    /**
+     * What a Bug costs on its act number: a full search if it has no target, or almost nothing
+     * if it does.
+     */
+    private int getBucketCost (int i)
+    {
+        return target[i] == null ? sim.getFlowerGrid().getSearchCost(FLOWER_SEARCH_RANGE) : 1;
+    }
+
+    private void updateBucketCost (int i)
+    {
+        int cost = getBucketCost(i);
+        if (actNumber[i] != 0){
+            bucketLoads[actNumber[i]] += cost - retargetCost[i];
+        }
+        retargetCost[i] = cost;
+    }
+
+    /**
+     * Called by the simulation when a Flower is added. Any Bug within range that has no target,
+     * or whose target is further away than the new Flower, heads for the new Flower instead.
+     */
+    public void flowerAdded (SimFlower flower)
+    {
+        sim.getBugGrid().getInRange(flower.getX(), flower.getY(), FLOWER_SEARCH_RANGE, nearby);
+        for (int k = 0; k < nearby.size(); k++){
+            SimBug bug = nearby.get(k);
+            int i = bug.getSlot();
+            SimFlower old = target[i];
+            if (old != null && getDistanceSquared(i, flower) >= getDistanceSquared(i, old)){
+                continue;
+            }
+            if (old != null){
+                unsubscribe(i);
+            }
+            aimAt(i, flower);
+            subscribe(i);
+            updateBucketCost(i);
+        }
+        nearby.clear();
+    }
+
+    /**
+     * Called by the simulation when a Flower is removed. Every Bug that was heading for it loses
+     * its target, and looks for a new one at the start of the next decide().
+     */
+    public void flowerRemoved (SimFlower flower)
+    {
+        ArrayList<SimBug> subscribers = flower.getSubscribers();
+        for (int k = 0; k < subscribers.size(); k++){
+            SimBug bug = subscribers.get(k);
+            int i = bug.getSlot();
+            target[i] = null;
+            updateBucketCost(i);
+            woken.add(bug);
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Find a new target for every Bug that lost its target since the last tick. (Even if a new
+     * Flower has given it a target since, there could be an older Flower that is closer.)
+     */
+    private void retargetWoken ()
+    {
+        for (int k = 0; k < woken.size(); k++){
+            SimBug bug = woken.get(k);
+            if (bug.isAlive()){
+                targetClosestFlower(bug.getSlot());
+            }
+        }
+        woken.clear();
+    }
+
+    public void setLocation (int i, int newX, int newY)
+    {
+        exactX[i] = newX;
+        exactY[i] = newY;
+        x[i] = sim.limitX(newX);
+        y[i] = sim.limitY(newY);
+    }
+
+    public void setRotation (int i, double preciseRotation)
+    {
+        rotation[i] = preciseRotation;
+        cos[i] = Math.cos(Math.toRadians(preciseRotation));
+        sin[i] = Math.sin(Math.toRadians(preciseRotation));
+    }
+
+    public void turn (int i, int angle)
+    {
+        setRotation(i, rotation[i] + angle);
+    }
+
+    /**
+     * Squared distance between whole number locations - comparing squares gives exactly the
+     * same answers as comparing DesertWorld.getDistance, without the square root.
+     */
+    private int getDistanceSquared (int i, SimEntity other)
+    {
+        int dx = other.getX() - x[i];
+        int dy = other.getY() - y[i];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return int  the number of slots in use (including Bugs removed during this tick)
+     */
+    public int size ()
+    {
+        return size;
+    }
+
+    public int getX (int i) { return x[i]; }
+
+    public int getY (int i) { return y[i]; }
+
+    public double getPreciseX (int i) { return exactX[i]; }
+
+    public double getPreciseY (int i) { return exactY[i]; }
+
+    public double getPreciseRotation (int i) { return rotation[i]; }
+
+    public int getEnergy (int i) { return energy[i]; }
+
+    public int getMaxEnergy (int i) { return maxEnergy[i]; }
+
+    public int getAge (int i) { return age[i]; }
+
+    public int getActNumber (int i) { return actNumber[i]; }
+
+    /**
+     * @return int  how many Bugs have the given act number
+     */
+    public int getBucketCount (int actNumber) { return bucketCounts[actNumber]; }
+
+    /**
+     * @return long the total retarget cost (in grid cells checked) of the Bugs with the given act number
+     */
+    public long getBucketLoad (int actNumber) { return bucketLoads[actNumber]; }
+
+    public boolean isBig (int i) { return big[i]; }
+
+    public SimFlower getTarget (int i) { return target[i]; }
+
+    public SimBug getHandle (int i) { return handles[i]; }
+
+    /**
+     * How many bytes write() needs.
+     */
+    public int getCheckpointSize ()
+    {
+        // 4 doubles, 9 ints and 1 byte for each Bug, then the woken Bugs and lastBucket
+        return size * (4 * 8 + 9 * 4 + 1) + (2 + countWoken()) * 4;
+    }
+
+    /**
+     * @return int  how many woken Bugs are still alive (the others are skipped anyway)
+     */
+    private int countWoken ()
+    {
+        int count = 0;
+        for (int k = 0; k < woken.size(); k++){
+            if (woken.get(k).isAlive()){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Save every Bug to a Checkpoint, one whole array at a time. Only call this between ticks,
+     * when there are no removed Bugs left in the slots.
+     *
+     * @param flowerIndex   where each Flower is in the simulation's list, to save targets by number
+     */
+    void write (ByteBuffer buf, IdentityHashMap<SimFlower, Integer> flowerIndex)
+    {
+        int[] targetIndex = new int[size];
+        for (int i = 0; i < size; i++){
+            targetIndex[i] = target[i] == null ? -1 : flowerIndex.get(target[i]);
+        }
+        byte[] bigBytes = new byte[size];
+        for (int i = 0; i < size; i++){
+            bigBytes[i] = (byte)(big[i] ? 1 : 0);
+        }
+        Checkpoint.putDoubles(buf, exactX, size);
+        Checkpoint.putDoubles(buf, exactY, size);
+        Checkpoint.putDoubles(buf, rotation, size);
+        Checkpoint.putDoubles(buf, speed, size);
+        Checkpoint.putInts(buf, x, size);
+        Checkpoint.putInts(buf, y, size);
+        Checkpoint.putInts(buf, energy, size);
+        Checkpoint.putInts(buf, maxEnergy, size);
+        Checkpoint.putInts(buf, age, size);
+        Checkpoint.putInts(buf, actNumber, size);
+        Checkpoint.putInts(buf, retargetCost, size);
+        Checkpoint.putInts(buf, targetIndex, size);
+        Checkpoint.putInts(buf, subscriberIndex, size);
+        buf.put(bigBytes, 0, size);
+        buf.putInt(lastBucket);
+        buf.putInt(countWoken());
+        for (int k = 0; k < woken.size(); k++){
+            if (woken.get(k).isAlive()){
+                buf.putInt(woken.get(k).getSlot());
+            }
+        }
+    }
+
+    /**
+     * Load every Bug from a Checkpoint into this (empty) population, one whole array at a time,
+     * and add them to the simulation.
+     *
+     * @param count     how many Bugs were saved
+     * @param flowers   the simulation's Flowers, in the order they were saved
+     */
+    void read (ByteBuffer buf, int count, SimFlower[] flowers)
+    {
+        while (handles.length < count){
+            grow();
+        }
+        int[] targetIndex = new int[count];
+        byte[] bigBytes = new byte[count];
+        Checkpoint.getDoubles(buf, exactX, count);
+        Checkpoint.getDoubles(buf, exactY, count);
+        Checkpoint.getDoubles(buf, rotation, count);
+        Checkpoint.getDoubles(buf, speed, count);
+        Checkpoint.getInts(buf, x, count);
+        Checkpoint.getInts(buf, y, count);
+        Checkpoint.getInts(buf, energy, count);
+        Checkpoint.getInts(buf, maxEnergy, count);
+        Checkpoint.getInts(buf, age, count);
+        Checkpoint.getInts(buf, actNumber, count);
+        Checkpoint.getInts(buf, retargetCost, count);
+        Checkpoint.getInts(buf, targetIndex, count);
+        Checkpoint.getInts(buf, subscriberIndex, count);
+        buf.get(bigBytes, 0, count);
+        lastBucket = buf.getInt();
+        size = count;
+        for (int i = 0; i < count; i++){
+            setRotation(i, rotation[i]);
+            big[i] = bigBytes[i] != 0;
+            bucketCounts[actNumber[i]]++;
+            bucketLoads[actNumber[i]] += retargetCost[i];
+            handles[i] = new SimBug(sim);
+            handles[i].restore(i, big[i]);
+            if (targetIndex[i] >= 0){
+                // Back in the same place in the Flower's list, so the list ends up in the same order
+                target[i] = flowers[targetIndex[i]];
+                target[i].restoreSubscriber(handles[i], subscriberIndex[i]);
+            }
+            sim.addRestoredBug(handles[i]);
+        }
+        int wokenCount = buf.getInt();
+        for (int k = 0; k < wokenCount; k++){
+            woken.add(handles[buf.getInt()]);
+        }
+    }
+
+    /**
+     * Make every array twice as big, keeping what is already there.
+     */
+    private void grow ()
+    {
+        int capacity = handles.length * 2;
+        exactX = Arrays.copyOf(exactX, capacity);
+        exactY = Arrays.copyOf(exactY, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        cos = Arrays.copyOf(cos, capacity);
+        sin = Arrays.copyOf(sin, capacity);
+        energy = Arrays.copyOf(energy, capacity);
+        maxEnergy = Arrays.copyOf(maxEnergy, capacity);
+        age = Arrays.copyOf(age, capacity);
+        actNumber = Arrays.copyOf(actNumber, capacity);
+        retargetCost = Arrays.copyOf(retargetCost, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        big = Arrays.copyOf(big, capacity);
+        target = Arrays.copyOf(target, capacity);
+        subscriberIndex = Arrays.copyOf(subscriberIndex, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+        dying = Arrays.copyOf(dying, capacity);
+        step = Arrays.copyOf(step, capacity);
+        intent = Arrays.copyOf(intent, capacity);
+        laysEgg = Arrays.copyOf(laysEgg, capacity);
+        costChange = Arrays.copyOf(costChange, capacity);
+        foundTarget = Arrays.copyOf(foundTarget, capacity);
+    }
+}
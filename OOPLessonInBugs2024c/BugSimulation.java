@@ -0,0 +1,600 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * The Bug simulation itself, with no Greenfoot required. This class holds every Bug, Flower,
+ * Egg, Dead Bug and Frog, and runs all of the rules of the simulation each time tick() is called:
+ * energy decay, nibbling, egg laying, hatching, frog predation and the flower spawn cadence.
+ *
+ * <p>Because nothing here needs a display, a BugSimulation can be run as fast as the computer
+ * allows (see HeadlessRunner), for example on a server or for long regression runs. The
+ * DesertWorld uses one of these too - it listens for things being added and removed
+ * (see SimulationListener) and keeps a matching set of Actors on the screen.</p>
+ *
+ * <p>One tick here is the same as one act of the DesertWorld: first the world-level work
+ * (flower spawning, stats), and then one act() for everything that was in the simulation
+ * when the tick started. Things added during a tick act for the first time on the next one,
+ * the same way Greenfoot does it.</p>
+ */
+public class BugSimulation
+{
+    // Simulation constants (the defaults - a Scenario can change most of these for one simulation)
+    public static final int FLOWER_SPAWN_RATE = 20; // How many new flowers will spawn per second.
+    public static final int MAX_FLOWERS = 160;
+    public static final int GRID_CELL_SIZE = 40; // size of each cell in the spatial grids used to find nearby things
+
+    // Flower constants
+    public static final int NIBBLES_PER_FLOWER = 4000; // Number of times a flower can be "Nibbled"
+    public static final int HP_PER_NIBBLE = 20; // HP gained per act while eating
+
+    // Bug constants
+    public static final int BUG_MAX_HP = 5000;
+    public static final int BUG_DEATH_RATE = 3; // HP lost per act
+    public static final int ODDS_OF_BIG = 6; // 1:this chance to spawn big bug. A value of 1 would make all bugs big
+
+    // Where new Bugs and Flowers are spawned, in a World of the normal height. Other sizes of
+    // World keep the same proportions (see spawnY).
+    private static final int SPAWN_HEIGHT = 560;
+    private static final int SPAWN_BAND = 480; // how tall the band they spawn in is
+    private static final int BUG_SPAWN_TOP = 120;
+    private static final int FLOWER_SPAWN_TOP = 50;
+
+    private int width;
+    private int height;
+    private Random random;
+
+    // The constants in use by this simulation
+    private int flowerSpawnRate = FLOWER_SPAWN_RATE;
+    private int maxFlowers = MAX_FLOWERS;
+    private int nibblesPerFlower = NIBBLES_PER_FLOWER;
+    private int hpPerNibble = HP_PER_NIBBLE;
+    private int bugMaxHp = BUG_MAX_HP;
+    private int bugDeathRate = BUG_DEATH_RATE;
+    private int oddsOfBig = ODDS_OF_BIG;
+    private SimulationListener listener;
+    private EventLog eventLog;
+
+    // Everything in the simulation. Removed things are only marked as not alive during a
+    // tick, and are taken out of these lists once the tick is over.
+    private BugPopulation bugs;
+    private ArrayList<SimFlower> flowers;
+    private ArrayList<SimEgg> eggs;
+    private ArrayList<SimDeadBug> deadBugs;
+    private ArrayList<SimFrog> frogs;
+    private int bugCount;
+    private int flowerCount;
+
+    private SpatialGrid<SimFlower> flowerGrid;
+    private SpatialGrid<SimBug> bugGrid;
+
+    private int actCounter;
+
+    // Stats
+    private int currentBugs;
+    private int maxAliveAtOnce;
+    private int averageAge;
+    private int ageTotalForDeathAvg;
+    private int deaths;
+
+    /**
+     * Create an empty simulation of the given size.
+     */
+    public BugSimulation (int width, int height)
+    {
+        this(width, height, new Random());
+    }
+
+    /**
+     * Create an empty simulation of the given size, which will get all of its random numbers
+     * from the given Random.
+     */
+    public BugSimulation (int width, int height, Random random)
+    {
+        this.width = width;
+        this.height = height;
+        this.random = random;
+
+        bugs = new BugPopulation(this);
+        flowers = new ArrayList<SimFlower>();
+        eggs = new ArrayList<SimEgg>();
+        deadBugs = new ArrayList<SimDeadBug>();
+        frogs = new ArrayList<SimFrog>();
+
+        flowerGrid = new SpatialGrid<SimFlower>(width, height, GRID_CELL_SIZE);
+        bugGrid = new SpatialGrid<SimBug>(width, height, GRID_CELL_SIZE);
+
+        actCounter = 0;
+    }
+
+    /**
+     * Create an empty simulation with the size, seed and constants from a Scenario. (Use
+     * Scenario.createSimulation() to get one with the starting Bugs, Flowers and Frogs added too.)
+     */
+    public BugSimulation (Scenario scenario)
+    {
+        this(scenario.getWidth(), scenario.getHeight(), new Random(scenario.getSeed()));
+        flowerSpawnRate = scenario.getFlowerSpawnRate();
+        maxFlowers = scenario.getMaxFlowers();
+        nibblesPerFlower = scenario.getNibblesPerFlower();
+        hpPerNibble = scenario.getHpPerNibble();
+        bugMaxHp = scenario.getBugMaxHp();
+        bugDeathRate = scenario.getBugDeathRate();
+        oddsOfBig = scenario.getOddsOfBig();
+    }
+
+    /**
+     * Set the listener to be told about everything that is added and removed.
+     */
+    public void setListener (SimulationListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Set the EventLog to write every birth, death, nibble, Egg, Flower and bomb to (or null
+     * to stop logging).
+     */
+    public void setEventLog (EventLog eventLog)
+    {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Log an event, if there is an EventLog. The tick is the act counter.
+     */
+    public void logEvent (byte type, int x, int y, int value)
+    {
+        if (eventLog != null) eventLog.log(type, actCounter, x, y, value);
+    }
+
+    /**
+     * Choose whether Bugs work out what to do on all of the computer's cores (when there are
+     * enough of them to be worth it). The results are exactly the same either way - see
+     * BugPopulation.
+     */
+    public void setParallel (boolean parallel)
+    {
+        bugs.setParallel(parallel);
+    }
+
+    /**
+     * Run one tick of the simulation.
+     */
+    public void tick ()
+    {
+        // Increment act counter
+        actCounter++;
+
+        // Only perform these world tasks on the 0th and 30th act of each cycle
+        if (actCounter % 30 == 0)
+        {
+            // Spawn flowers on the 0th act of each 60 act cycle (0-59)
+            if (actCounter % 60 == 0)
+            {
+                // Only spawn Flowers if there are less than the maximum
+                if (flowerCount < maxFlowers)
+                {
+                    int spawnCount = flowerSpawnRate;
+                    if (flowerCount + spawnCount > maxFlowers){
+                        spawnCount = maxFlowers - flowerCount;
+                    }
+                    for (int i = 0; i < spawnCount; i++){
+                        spawnFlower();
+                    }
+                }
+            }
+            statUpdates();
+        }
+        TickProfiler.mark(TickProfiler.SIM_FLOWERS_AND_STATS);
+
+        // Only things that were here when the acting started get to act this tick
+        int nBugs = bugs.size();
+        int nFrogs = frogs.size();
+        int nFlowers = flowers.size();
+        int nEggs = eggs.size();
+        int nDeadBugs = deadBugs.size();
+        bugs.ageAndDecay(nBugs);
+        bugs.decide(nBugs);
+        bugs.moveAll(nBugs);
+        TickProfiler.mark(TickProfiler.SIM_BUGS);
+        for (int i = 0; i < nFrogs; i++){
+            SimFrog f = frogs.get(i);
+            if (f.isAlive()) f.act();
+        }
+        TickProfiler.mark(TickProfiler.SIM_FROGS);
+        for (int i = 0; i < nFlowers; i++){
+            SimFlower f = flowers.get(i);
+            if (f.isAlive()) f.act();
+        }
+        TickProfiler.mark(TickProfiler.SIM_FLOWERS);
+        for (int i = 0; i < nEggs; i++){
+            SimEgg e = eggs.get(i);
+            if (e.isAlive()) e.act();
+        }
+        TickProfiler.mark(TickProfiler.SIM_EGGS);
+        for (int i = 0; i < nDeadBugs; i++){
+            SimDeadBug d = deadBugs.get(i);
+            if (d.isAlive()) d.act();
+        }
+        TickProfiler.mark(TickProfiler.SIM_DEAD_BUGS);
+
+        bugs.removeDead();
+        removeDead(frogs);
+        removeDead(flowers);
+        removeDead(eggs);
+        removeDead(deadBugs);
+        TickProfiler.mark(TickProfiler.SIM_CLEANUP);
+    }
+
+    /**
+     * Spawn a single Bug at a random location (this is what the Spawn Bug button does)
+     */
+    public void spawnBug ()
+    {
+        SimBug bug = new SimBug(this);
+        addBug(bug, getRandomNumber(width), spawnY(BUG_SPAWN_TOP));
+        logEvent(EventLog.BUG_SPAWNED, bug.getX(), bug.getY(), bug.isBig() ? 1 : 0);
+    }
+
+    /**
+     * Spawn a single Flower at a random location
+     */
+    public void spawnFlower ()
+    {
+        addFlower(new SimFlower(this), getRandomNumber(width), spawnY(FLOWER_SPAWN_TOP));
+    }
+
+    /**
+     * Pick a random y to spawn something at, somewhere in the spawn band starting at top -
+     * both scaled from the normal height to this simulation's height.
+     */
+    private int spawnY (int top)
+    {
+        return getRandomNumber(SPAWN_BAND * height / SPAWN_HEIGHT) + top * height / SPAWN_HEIGHT;
+    }
+
+    /**
+     * Remove every Flower (this is what the Bomb Flowers button does)
+     */
+    public void bombFlowers ()
+    {
+        int before = flowerCount;
+        for (int i = 0; i < flowers.size(); i++){
+            removeFlower(flowers.get(i));
+        }
+        logEvent(EventLog.FLOWERS_BOMBED, 0, 0, before - flowerCount);
+    }
+
+    public void addBug (SimBug bug, int x, int y)
+    {
+        bugCount++;
+        bug.addedToSimulation(x, y);
+        bugGrid.add(bug, bug.getX(), bug.getY());
+        if (listener != null) listener.bugAdded(bug);
+    }
+
+    /**
+     * @param eaten     true if the Bug was eaten by a Frog, false if it starved
+     */
+    public void removeBug (SimBug bug, boolean eaten)
+    {
+        if (!bug.isAlive()) return;
+        bug.removedFromSimulation();
+        bugCount--;
+        bugGrid.remove(bug, bug.getX(), bug.getY());
+        logEvent(eaten ? EventLog.BUG_EATEN : EventLog.BUG_STARVED, bug.getX(), bug.getY(), bug.getAge());
+        if (listener != null) listener.bugRemoved(bug, eaten);
+    }
+
+    public void addFlower (SimFlower flower, int x, int y)
+    {
+        flowers.add(flower);
+        flowerCount++;
+        flower.addedToSimulation(x, y);
+        flowerGrid.add(flower, flower.getX(), flower.getY());
+        bugs.flowerAdded(flower);
+        logEvent(EventLog.FLOWER_SPAWNED, flower.getX(), flower.getY(), flower.getNibbles());
+        if (listener != null) listener.flowerAdded(flower);
+    }
+
+    public void removeFlower (SimFlower flower)
+    {
+        if (!flower.isAlive()) return;
+        flower.removedFromSimulation();
+        flowerCount--;
+        flowerGrid.remove(flower, flower.getX(), flower.getY());
+        bugs.flowerRemoved(flower);
+        if (listener != null) listener.flowerRemoved(flower);
+    }
+
+    public void addEgg (SimEgg egg, int x, int y)
+    {
+        eggs.add(egg);
+        egg.addedToSimulation(x, y);
+        if (listener != null) listener.eggAdded(egg);
+    }
+
+    public void removeEgg (SimEgg egg)
+    {
+        if (!egg.isAlive()) return;
+        egg.removedFromSimulation();
+        if (listener != null) listener.eggRemoved(egg);
+    }
+
+    public void addDeadBug (SimDeadBug deadBug, int x, int y)
+    {
+        deadBugs.add(deadBug);
+        deadBug.addedToSimulation(x, y);
+        if (listener != null) listener.deadBugAdded(deadBug);
+    }
+
+    public void removeDeadBug (SimDeadBug deadBug)
+    {
+        if (!deadBug.isAlive()) return;
+        deadBug.removedFromSimulation();
+        if (listener != null) listener.deadBugRemoved(deadBug);
+    }
+
+    public void addFrog (SimFrog frog, int x, int y)
+    {
+        frogs.add(frog);
+        frog.addedToSimulation(x, y);
+        if (listener != null) listener.frogAdded(frog);
+    }
+
+    /**
+     * Called by a SimFlower when it is nibbled.
+     */
+    void flowerNibbled (SimFlower flower)
+    {
+        if (listener != null) listener.flowerNibbled(flower);
+    }
+
+    /**
+     * Called by a SimEgg when it cracks.
+     */
+    void eggCracked (SimEgg egg)
+    {
+        if (listener != null) listener.eggCracked(egg);
+    }
+
+    /**
+     * Add to the list of Deaths when a bug dies, to be used for stat updates
+     */
+    public void addDeath (int age)
+    {
+        deaths++;
+        ageTotalForDeathAvg += age;
+        averageAge = (int)((double)ageTotalForDeathAvg / (double)deaths);
+    }
+
+    /**
+     * Update the statistics
+     */
+    private void statUpdates ()
+    {
+        currentBugs = bugCount;
+        if (currentBugs > maxAliveAtOnce)
+            maxAliveAtOnce = currentBugs;
+    }
+
+    /**
+     * Take everything that was removed during this tick out of a list, keeping the order
+     * of everything else the same.
+     */
+    private static <E extends SimEntity> void removeDead (ArrayList<E> list)
+    {
+        int kept = 0;
+        int size = list.size();
+        for (int i = 0; i < size; i++){
+            E e = list.get(i);
+            if (e.isAlive()){
+                list.set(kept++, e);
+            }
+        }
+        for (int i = size - 1; i >= kept; i--){
+            list.remove(i);
+        }
+    }
+
+    /**
+     * @return int  a number from 0 - 59
+     */
+    public int getActNumber ()
+    {
+        return actCounter % 60;
+    }
+
+    public int getActCounter ()
+    {
+        return actCounter;
+    }
+
+    /**
+     * Works like Greenfoot.getRandomNumber, but uses this simulation's own Random.
+     */
+    public int getRandomNumber (int limit)
+    {
+        return random.nextInt(limit);
+    }
+
+    int limitX (int x)
+    {
+        if (x < 0) return 0;
+        if (x >= width) return width - 1;
+        return x;
+    }
+
+    int limitY (int y)
+    {
+        if (y < 0) return 0;
+        if (y >= height) return height - 1;
+        return y;
+    }
+
+    public int getWidth ()
+    {
+        return width;
+    }
+
+    public int getHeight ()
+    {
+        return height;
+    }
+
+    public int getNibblesPerFlower ()
+    {
+        return nibblesPerFlower;
+    }
+
+    public int getHpPerNibble ()
+    {
+        return hpPerNibble;
+    }
+
+    public int getBugMaxHp ()
+    {
+        return bugMaxHp;
+    }
+
+    public int getBugDeathRate ()
+    {
+        return bugDeathRate;
+    }
+
+    public int getOddsOfBig ()
+    {
+        return oddsOfBig;
+    }
+
+    public SpatialGrid<SimFlower> getFlowerGrid ()
+    {
+        return flowerGrid;
+    }
+
+    /**
+     * @return BugPopulation    where every Bug's data is kept, and where the Bug rules are run
+     */
+    public BugPopulation getBugPopulation ()
+    {
+        return bugs;
+    }
+
+    public SpatialGrid<SimBug> getBugGrid ()
+    {
+        return bugGrid;
+    }
+
+    /**
+     * @return int  the number of Bugs alive right now
+     */
+    public int getBugCount ()
+    {
+        return bugCount;
+    }
+
+    /**
+     * @return int  the number of Flowers right now
+     */
+    public int getFlowerCount ()
+    {
+        return flowerCount;
+    }
+
+    /**
+     * @return int  the number of Bugs as of the last stat update
+     */
+    public int getCurrentBugs ()
+    {
+        return currentBugs;
+    }
+
+    public int getMaxAliveAtOnce ()
+    {
+        return maxAliveAtOnce;
+    }
+
+    public int getDeaths ()
+    {
+        return deaths;
+    }
+
+    public int getAverageAge ()
+    {
+        return averageAge;
+    }
+
+    // Used by Checkpoint to save and restore everything
+
+    Random getRandom ()
+    {
+        return random;
+    }
+
+    ArrayList<SimFlower> getFlowers ()
+    {
+        return flowers;
+    }
+
+    ArrayList<SimEgg> getEggs ()
+    {
+        return eggs;
+    }
+
+    ArrayList<SimDeadBug> getDeadBugs ()
+    {
+        return deadBugs;
+    }
+
+    ArrayList<SimFrog> getFrogs ()
+    {
+        return frogs;
+    }
+
+    /**
+     * @return int[]    the simulation constants, in the same order as setSettings() takes them
+     */
+    int[] getSettings ()
+    {
+        return new int[]{flowerSpawnRate, maxFlowers, nibblesPerFlower, hpPerNibble, bugMaxHp, bugDeathRate, oddsOfBig};
+    }
+
+    void setSettings (int[] settings)
+    {
+        flowerSpawnRate = settings[0];
+        maxFlowers = settings[1];
+        nibblesPerFlower = settings[2];
+        hpPerNibble = settings[3];
+        bugMaxHp = settings[4];
+        bugDeathRate = settings[5];
+        oddsOfBig = settings[6];
+    }
+
+    /**
+     * @return int[]    the act counter and the stats, in the same order as setCounters() takes them
+     */
+    int[] getCounters ()
+    {
+        return new int[]{actCounter, currentBugs, maxAliveAtOnce, averageAge, ageTotalForDeathAvg, deaths};
+    }
+
+    void setCounters (int[] counters)
+    {
+        actCounter = counters[0];
+        currentBugs = counters[1];
+        maxAliveAtOnce = counters[2];
+        averageAge = counters[3];
+        ageTotalForDeathAvg = counters[4];
+        deaths = counters[5];
+    }
+
+    /**
+     * Add a Bug whose slot in the BugPopulation has already been filled in (by a Checkpoint).
+     */
+    void addRestoredBug (SimBug bug)
+    {
+        bugCount++;
+        bugGrid.add(bug, bug.getX(), bug.getY());
+        if (listener != null) listener.bugAdded(bug);
+    }
+}
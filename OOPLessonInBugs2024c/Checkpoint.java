@@ -0,0 +1,278 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+/**
+ * Saves everything in a BugSimulation to a binary file, and loads it back - so a long run can be
+ * stopped and picked up again later, or a big population can be started from a saved one instead
+ * of growing it from scratch.
+ *
+ * <p>The file is memory-mapped: the operating system makes it look like one big ByteBuffer, and
+ * reading or writing the buffer reads or writes the file. The Bugs are saved one whole array at a
+ * time (every x, then every y, and so on), straight from the BugPopulation's arrays, so saving or
+ * loading 50,000 Bugs is a handful of bulk copies rather than 50,000 of anything.</p>
+ *
+ * <p>Everything is saved - every Bug's exact position, rotation, energy, age, act number and
+ * target, every Flower's nibbles, every Egg's hatching, the Dead Bugs, the Frogs, the stats, the
+ * act counter, and even the state of the Random - so a loaded simulation carries on exactly the
+ * way the saved one would have. For the same reason, the order of things inside the spatial
+ * grids and the order of each Flower's list of Bugs heading for it are saved too: both decide
+ * which of two equally good choices gets picked.</p>
+ *
+ * <p>Only save between ticks (never from inside an act() of something in the simulation).</p>
+ */
+public class Checkpoint
+{
+    private static final int MAGIC = 0x42554753; // "BUGS"
+    private static final int VERSION = 2;
+
+    /**
+     * Save a simulation to a file, replacing whatever was there.
+     */
+    public static void save (BugSimulation sim, String filename) throws IOException
+    {
+        byte[] random = saveRandom(sim.getRandom());
+        ArrayList<SimFlower> flowers = sim.getFlowers();
+        ArrayList<SimEgg> eggs = sim.getEggs();
+        ArrayList<SimDeadBug> deadBugs = sim.getDeadBugs();
+        ArrayList<SimFrog> frogs = sim.getFrogs();
+        BugPopulation bugs = sim.getBugPopulation();
+
+        int[] settings = sim.getSettings();
+        int[] counters = sim.getCounters();
+        long size = 4 * (4 + settings.length + counters.length + 1) + random.length
+            + 4 + flowers.size() * 3 * 4
+            + 4 + bugs.getCheckpointSize()
+            + 4 + eggs.size() * 8 * 4
+            + 4 + deadBugs.size() * 3 * 4
+            + 4 + frogs.size() * 4 * 4
+            + 4 + bugs.size() * 4
+            + 4 + flowers.size() * 4;
+
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            channel.truncate(0);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            buf.putInt(MAGIC);
+            buf.putInt(VERSION);
+            buf.putInt(sim.getWidth());
+            buf.putInt(sim.getHeight());
+            putInts(buf, settings, settings.length);
+            putInts(buf, counters, counters.length);
+            buf.putInt(random.length);
+            buf.put(random);
+
+            IdentityHashMap<SimFlower, Integer> flowerIndex = new IdentityHashMap<SimFlower, Integer>();
+            buf.putInt(flowers.size());
+            for (int i = 0; i < flowers.size(); i++){
+                SimFlower f = flowers.get(i);
+                flowerIndex.put(f, i);
+                buf.putInt(f.getX());
+                buf.putInt(f.getY());
+                buf.putInt(f.getNibbles());
+            }
+
+            buf.putInt(bugs.size());
+            bugs.write(buf, flowerIndex);
+
+            buf.putInt(eggs.size());
+            for (int i = 0; i < eggs.size(); i++){
+                SimEgg e = eggs.get(i);
+                buf.putInt(e.getX());
+                buf.putInt(e.getY());
+                int[] state = e.getState();
+                putInts(buf, state, state.length);
+            }
+
+            buf.putInt(deadBugs.size());
+            for (int i = 0; i < deadBugs.size(); i++){
+                SimDeadBug d = deadBugs.get(i);
+                buf.putInt(d.getX());
+                buf.putInt(d.getY());
+                buf.putInt(d.getTransparency());
+            }
+
+            buf.putInt(frogs.size());
+            for (int i = 0; i < frogs.size(); i++){
+                SimFrog f = frogs.get(i);
+                SimBug target = f.getTargetBug();
+                buf.putInt(f.getX());
+                buf.putInt(f.getY());
+                buf.putInt(f.isFacingRight() ? 1 : 0);
+                buf.putInt(target != null && target.isAlive() ? target.getSlot() : -1);
+            }
+
+            // The order of everything in the grids (by cell)
+            ArrayList<SimBug> bugOrder = new ArrayList<SimBug>();
+            sim.getBugGrid().getAll(bugOrder);
+            buf.putInt(bugOrder.size());
+            for (int i = 0; i < bugOrder.size(); i++){
+                buf.putInt(bugOrder.get(i).getSlot());
+            }
+            ArrayList<SimFlower> flowerOrder = new ArrayList<SimFlower>();
+            sim.getFlowerGrid().getAll(flowerOrder);
+            buf.putInt(flowerOrder.size());
+            for (int i = 0; i < flowerOrder.size(); i++){
+                buf.putInt(flowerIndex.get(flowerOrder.get(i)));
+            }
+            buf.force();
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Load a simulation from a file. The listener (if there is one) is told about everything
+     * as it is added, the same as for a new simulation.
+     */
+    public static BugSimulation load (String filename, SimulationListener listener) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION){
+                throw new IOException("Not a checkpoint (or from a different version): " + filename);
+            }
+            int width = buf.getInt();
+            int height = buf.getInt();
+            int[] settings = new int[7];
+            getInts(buf, settings, settings.length);
+            int[] counters = new int[6];
+            getInts(buf, counters, counters.length);
+            byte[] random = new byte[buf.getInt()];
+            buf.get(random);
+
+            BugSimulation sim = new BugSimulation(width, height, loadRandom(random));
+            sim.setSettings(settings);
+            sim.setListener(listener);
+
+            // Flowers first, so Bugs can find their targets
+            SimFlower[] flowers = new SimFlower[buf.getInt()];
+            for (int i = 0; i < flowers.length; i++){
+                int x = buf.getInt();
+                int y = buf.getInt();
+                flowers[i] = new SimFlower(sim, buf.getInt());
+                sim.addFlower(flowers[i], x, y);
+            }
+
+            BugPopulation bugs = sim.getBugPopulation();
+            bugs.read(buf, buf.getInt(), flowers);
+
+            int eggCount = buf.getInt();
+            for (int i = 0; i < eggCount; i++){
+                int x = buf.getInt();
+                int y = buf.getInt();
+                int[] state = new int[6];
+                getInts(buf, state, state.length);
+                sim.addEgg(new SimEgg(sim, state), x, y);
+            }
+
+            int deadBugCount = buf.getInt();
+            for (int i = 0; i < deadBugCount; i++){
+                int x = buf.getInt();
+                int y = buf.getInt();
+                sim.addDeadBug(new SimDeadBug(sim, buf.getInt()), x, y);
+            }
+
+            int frogCount = buf.getInt();
+            for (int i = 0; i < frogCount; i++){
+                int x = buf.getInt();
+                int y = buf.getInt();
+                boolean facingRight = buf.getInt() != 0;
+                int targetSlot = buf.getInt();
+                SimFrog frog = new SimFrog(sim);
+                sim.addFrog(frog, x, y);
+                frog.restore(targetSlot >= 0 ? bugs.getHandle(targetSlot) : null, facingRight);
+            }
+
+            // Put the grids back in the saved order
+            SpatialGrid<SimBug> bugGrid = sim.getBugGrid();
+            bugGrid.clear();
+            int bugGridCount = buf.getInt();
+            for (int i = 0; i < bugGridCount; i++){
+                SimBug bug = bugs.getHandle(buf.getInt());
+                bugGrid.add(bug, bug.getX(), bug.getY());
+            }
+            SpatialGrid<SimFlower> flowerGrid = sim.getFlowerGrid();
+            flowerGrid.clear();
+            int flowerGridCount = buf.getInt();
+            for (int i = 0; i < flowerGridCount; i++){
+                SimFlower flower = flowers[buf.getInt()];
+                flowerGrid.add(flower, flower.getX(), flower.getY());
+            }
+
+            // Last, since adding things changes some of the counts
+            sim.setCounters(counters);
+            return sim;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Write the first count values of an array, all at once.
+     */
+    static void putInts (ByteBuffer buf, int[] values, int count)
+    {
+        buf.asIntBuffer().put(values, 0, count);
+        buf.position(buf.position() + count * 4);
+    }
+
+    static void getInts (ByteBuffer buf, int[] values, int count)
+    {
+        buf.asIntBuffer().get(values, 0, count);
+        buf.position(buf.position() + count * 4);
+    }
+
+    static void putDoubles (ByteBuffer buf, double[] values, int count)
+    {
+        buf.asDoubleBuffer().put(values, 0, count);
+        buf.position(buf.position() + count * 8);
+    }
+
+    static void getDoubles (ByteBuffer buf, double[] values, int count)
+    {
+        buf.asDoubleBuffer().get(values, 0, count);
+        buf.position(buf.position() + count * 8);
+    }
+
+    /**
+     * The only way to get at the inside of a Random is to serialize it.
+     */
+    private static byte[] saveRandom (Random random) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(random);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Random loadRandom (byte[] data) throws IOException
+    {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+        try {
+            return (Random)in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -3,20 +3,45 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
 /**
  * A Dead Bug ... Actually a skull. Starts off opaque and slowly turns transparent,
  * and then eventually removes itself from the World.
+ * 
+ * The fading is counted by SimDeadBug - this class shows it on the screen, by stepping
+ * through the faded skulls that ImageRegistry made ahead of time (shared by every DeadBug).
  */
 public class DeadBug extends Actor
 {
-    public DeadBug ()
+    private SimDeadBug model;
+    private int shownTransparency;
+
+    public DeadBug (SimDeadBug model)
+    {
+        reset(model);
+    }
+
+    /**
+     * Get a used DeadBug (from an ActorPool) ready to show a new SimDeadBug, as if it had just
+     * been made. Call this before adding it to the World.
+     */
+    public void reset (SimDeadBug newModel)
+    {
+        model = newModel;
+        shownTransparency = model.getTransparency();
+        setImage(ImageRegistry.getSkull(shownTransparency));
+    }
+
+    /**
+     * Called when this DeadBug is taken out of the World to be pooled.
+     */
+    public void release ()
     {
-        this.getImage().setTransparency(250);
+        model = null;
     }
     
     public void act()
     {
-        this.getImage().setTransparency(getImage().getTransparency() - 1);
-        if (this.getImage().getTransparency() < 5)
-        {
-            getWorld().removeObject(this);
+        if (model.getTransparency() != shownTransparency){
+            shownTransparency = model.getTransparency();
+            setImage(ImageRegistry.getSkull(shownTransparency));
         }
+        TickProfiler.mark(TickProfiler.DEAD_BUG);
     }
 }
@@ -1,5 +1,7 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -11,50 +13,106 @@ import java.util.List;
  * - Encapsulation
  * 
  * @author Jordan Cohen
- * @version v1.24, Feb 2024
+ * @version v1.26, Feb 2024
  * 
  * - (v1.21) This version included a number of massive performance tweeks
  * - (v1.24c) Fixed flower spawn rate math issue
+ * - (v1.25) The rules of the simulation now live in BugSimulation, which can also run
+ *           without Greenfoot (see HeadlessRunner). This World runs one tick of it per act,
+ *           and keeps a matching Actor on the screen for everything in it.
+ * - (v1.26) Turbo mode - run several ticks of the simulation for every act (every frame that
+ *           is drawn). The simulation does exactly the same thing either way; the Actors just
+ *           catch up, and the bars, score bar and z-sort update, once per frame instead of once
+ *           per tick.
  */
-public class DesertWorld extends World
+public class DesertWorld extends World implements SimulationListener
 {
     // World constants
-    private static final int FLOWER_SPAWN_RATE = 20; // How many new flowers will spawn per second. 
-    // Smaller number = more flowers
     public static final boolean SHOW_BARS = true;
+    public static final int BUG_ROTATION_STEP = 5; // Bugs show pre-rotated images to the nearest 5 degrees (0 = let Greenfoot rotate them)
     public static final boolean TRACK_PERF = true;
+    public static final boolean PARALLEL_TICK = true; // let Bugs decide what to do on all cores (only with lots of Bugs)
+    public static final int RECENT_TICKS = 3600; // how many recent acts TRACK_PERF remembers (about a minute at full speed)
+    public static final long SLOW_TICK_NANOS = 16300000; // longer than this misses a frame at 60 fps
+    public static final boolean PROFILE = false; // start with the TickProfiler on (it can also be turned on and off while running)
+    public static final int PROFILE_SAMPLE_EVERY = 10; // the profiler times one act out of this many
+    public static final boolean SHOW_HUD = false; // show live performance numbers under the score bar (see PerfHud)
+    public static final int HUD_PERIOD = 30; // how many acts apart the PerfHud is refreshed
     public static final boolean Z_SORT = true;
-    public static final int MAX_FLOWERS = 160;
-
-    // Flower constants
-    public static final int NIBBLES_PER_FLOWER = 4000; // Number of times a flower can be "Nibbled"
-    public static final int HP_PER_NIBBLE = 20; // HP gained per act while eating
-
-    // Bug constants
-    public static final int BUG_MAX_HP = 5000;
-    public static final int BUG_DEATH_RATE = 3; // HP lost per act
-    public static final int ODDS_OF_BIG = 6; // 1:this chance to spawn big bug. A value of 1 would make all bugs big
-
-    private static long lastAct, thisAct, elapsed;
+    public static final boolean FAST_Z_SORT = true; // sort with ZSorter instead of Util.zSort (see below)
+    public static final boolean INCREMENTAL_Z_SORT = true; // with FAST_Z_SORT, fix the order a little every act instead of all at once
+    public static final int Z_REPAIR_BUDGET = 2000; // most z-order work to do in one act, for each kind of Actor
+    public static final boolean POOL_ACTORS = true; // reuse removed Bugs, Flowers, Eggs and Dead Bugs (see ActorPool)
+    public static final int POOL_SIZE = 2000; // most removed Actors of each kind to keep for reuse
+    public static final int TURBO_TICKS = 1; // simulation ticks per act - more than 1 for turbo mode (see setTurbo)
+
+    // Periodic jobs (see TaskScheduler) - how many acts apart they run, and how many acts late they can be
+    // if an act is running out of time. No new jobs are started this long after an act begins, unless
+    // they can't wait any longer.
+    public static final long SCHEDULER_DEADLINE_NANOS = 12000000;
+    public static final int BUG_BAR_PERIOD = 6;
+    public static final int BUG_BAR_TOLERANCE = 24;
+    public static final int FLOWER_BAR_PERIOD = 15; // (only Flowers that have been nibbled since last time - see ActiveSet)
+    public static final int FLOWER_BAR_TOLERANCE = 45;
+
+    // Scenarios - set these to file names to start from a saved Scenario, and to record or play
+    // back the buttons that are pressed (see Scenario and InputLog). null means don't.
+    public static final String SCENARIO_FILE = null;
+    public static final String RECORD_INPUT_FILE = null;
+    public static final String REPLAY_INPUT_FILE = null;
+    // Where saveCheckpoint() and restoreCheckpoint() save and load the whole simulation (see Checkpoint)
+    public static final String CHECKPOINT_FILE = "checkpoint.bin";
+    // Set this to a file name to log every birth, death, nibble, Egg, Flower and bomb to it while
+    // the scenario is running (see EventLog). null means don't.
+    public static final String EVENT_LOG_FILE = null;
+    public static final int EVENT_LOG_CAPACITY = 65536; // events that can wait to be written before new ones are dropped
+
+    private long lastAct, thisAct, elapsed;
+
+    // The simulation that this World is showing
+    private BugSimulation sim;
+    private Scenario scenario;
+    private InputLog inputLog; // buttons pressed so far, or the ones being played back
+    private boolean replaying;
+    private EventLog eventLog;
+    private TaskScheduler scheduler;
 
     // Greenfoot Objects
     private TextButton spawnButton;
     private TextButton clearFlowersButton;
     private SuperDisplayLabel scoreBar; 
 
+    // Every Actor in this World, by class - kept up to date by addObject() and removeObject()
+    private ActorRegistry actors = new ActorRegistry();
+
+    // Removed Actors (and their stat bars) waiting to be reused
+    private ActorPool<Bug> bugPool = new ActorPool<Bug>(POOL_SIZE);
+    private ActorPool<Flower> flowerPool = new ActorPool<Flower>(POOL_SIZE);
+    private ActorPool<Egg> eggPool = new ActorPool<Egg>(POOL_SIZE);
+    private ActorPool<DeadBug> deadBugPool = new ActorPool<DeadBug>(POOL_SIZE);
+
+    // Actors that have been woken up by something happening to them (see ActiveSet) - most
+    // Flowers and Eggs have nothing to do most of the time, so they only act when woken
+    private ActiveSet awake = new ActiveSet(); // acts every act
+    private ActiveSet nibbledFlowers = new ActiveSet(); // acts every FLOWER_BAR_PERIOD acts
+
+    // Keep Bugs, Flowers and Eggs painted in order of their y coordinates
+    private ZSorter bugOrder;
+    private ZSorter flowerOrder;
+    private ZSorter eggOrder;
+
     // Performance Tracking
-    private static int[] bugCounts;
-    private static double[] actTimes;
-    private static int actCounter;
-    private static int currentBugs;
+    private TickRecorder tickRecorder;
+    private TickProfiler profiler;
+    private SuperDisplayLabel profileLabel;
+    private long profileLabelSamples; // how many samples the profile label was last updated with
+    private PerfHud hud;
+    private int actCounter;
+    private int currentBugs;
 
     // World variables
-    private int flowerSpawnCounter;
     private boolean scoreShowing;
-    private int maxAliveAtOnce;
-    private int averageAge;
-    private int ageTotalForDeathAvg;
-    private int deaths;
+    private int ticksPerAct;
 
     /**
      * Constructor for objects of class SpaceWorld.
@@ -66,20 +124,19 @@ public class DesertWorld extends World
         super(800, 560, 1); 
 
         // Sets the greenfoot speed slider back to the middle, in case you increased it
-        // while running it last time.
-        Greenfoot.setSpeed(50);
+        // while running it last time (or all the way up, for turbo mode).
+        setTurbo(TURBO_TICKS);
 
         // Calls the static init() method that gets the Bug class ready
         Bug.init();
 
-        if (TRACK_PERF){ // init some (cheap to use) Arrays to track performance if desired
-            bugCounts = new int[10000000];
-            actTimes = new double [1000000];
+        if (TRACK_PERF){ // keep track of how long each act takes (this never gets any bigger)
+            tickRecorder = new TickRecorder(RECENT_TICKS);
         }
 
         // Set the order in which objects are painted, effectively setting what
         // will show up "on top of" what
-        setPaintOrder (TextButton.class, SuperStatBar.class, Bug.class, Flower.class,  SuperDisplayLabel.class, Egg.class, DeadBug.class);
+        setPaintOrder (PerfHud.class, TextButton.class, SuperStatBar.class, Bug.class, Flower.class,  SuperDisplayLabel.class, Egg.class, DeadBug.class);
 
         // Score should not be showing at this point - because the welcome message is displayed
         scoreShowing = false;
@@ -100,98 +157,236 @@ public class DesertWorld extends World
         clearFlowersButton = new TextButton ("Bomb Flowers", 24);
         addObject (clearFlowersButton, 726, 24);
 
+        // Periodic jobs for the World itself
+        scheduler = new TaskScheduler();
+        profiler = new TickProfiler(PROFILE_SAMPLE_EVERY);
+        if (PROFILE){
+            startProfiler();
+        }
+        if (Z_SORT && FAST_Z_SORT && INCREMENTAL_Z_SORT){
+            scheduler.schedule(() -> zSort(), 1, 5);
+        } else if (Z_SORT){
+            scheduler.schedule(() -> zSort(), 30, 30);
+        }
+        scheduler.schedule(() -> updateScoreBar(), 30, 0);
+        scheduler.schedule(() -> updateFlowerBars(), FLOWER_BAR_PERIOD, FLOWER_BAR_TOLERANCE);
+        scheduler.schedule(() -> updateProfileLabel(), 60, 30);
+        if (SHOW_HUD){
+            hud = new PerfHud(actors, tickRecorder);
+            addObject(hud, getWidth() / 2, 0);
+            // SuperDisplayLabel puts itself at the top, so move it down to just under the score bar
+            hud.setLocation(getWidth() / 2, scoreBar.getImage().getHeight() + hud.getImage().getHeight() / 2);
+            scheduler.schedule(() -> hud.refresh(actCounter), HUD_PERIOD, HUD_PERIOD);
+        }
+
+        bugOrder = new ZSorter(getHeight());
+        flowerOrder = new ZSorter(getHeight());
+        eggOrder = new ZSorter(getHeight());
+
         // Initial variable values
-        maxAliveAtOnce = 0;
         actCounter = 0;
-        flowerSpawnCounter = FLOWER_SPAWN_RATE;
         lastAct = -1;
-        // Spawn three bugs at the start
-        spawnBug();
-        spawnBug();
-        spawnBug();
-        
-        addObject(new Frog(), getWidth() / 2, getHeight() / 2); // place frog in the middle
+
+        // Create the simulation - from now on, whenever something is added to or removed
+        // from it, one of the SimulationListener methods below will be called. The default
+        // Scenario starts with three bugs and a frog in the middle.
+        scenario = new Scenario();
+        inputLog = new InputLog();
+        try {
+            if (SCENARIO_FILE != null){
+                scenario = Scenario.load(SCENARIO_FILE);
+            }
+            if (REPLAY_INPUT_FILE != null){
+                inputLog = InputLog.load(REPLAY_INPUT_FILE);
+                replaying = true;
+            }
+        } catch (IOException e) {
+            System.out.println("Could not load scenario: " + e);
+        }
+        sim = scenario.createSimulation(this);
+        sim.setParallel(PARALLEL_TICK);
+        scoreShowing = scenario.getBugs() > 0;
     }
 
     public void act ()
     {
+        long actStart = System.nanoTime();
+        profiler.startTick();
         //System.out.println();
         if (TRACK_PERF){
             updateTimer();
         }
-        // Increment act counter
-        actCounter++;
 
-        // Check if user wants to spawn another bug
-        if (Greenfoot.mouseClicked(spawnButton))
-        {
-            spawnBug();
+        if (replaying){
+            scoreShowing = true;
+        } else {
+            // Check if user wants to spawn another bug
+            if (Greenfoot.mouseClicked(spawnButton))
+            {
+                spawnBug();
+            }
+            // Check if user wants to delete all flowers
+            if (Greenfoot.mouseClicked(clearFlowersButton)){
+                inputLog.perform(sim, InputLog.BOMB_FLOWERS);
+            }
         }
-        // Check if user wants to delete all flowers
-        if (Greenfoot.mouseClicked(clearFlowersButton)){
-            // Get a list of all Flowers, and remove them using an iterative loop
-            for (Flower f : getObjects(Flower.class)){
-                removeObject(f);
+        TickProfiler.mark(TickProfiler.INPUT);
+
+        // Run the rules of the simulation for this act (more than once in turbo mode). All of
+        // the Actors will catch up with it when their act() methods are called.
+        for (int i = 0; i < ticksPerAct; i++){
+            if (replaying){
+                // Press the same buttons, on the same ticks, as the recorded run
+                inputLog.replay(sim);
+                TickProfiler.mark(TickProfiler.INPUT);
             }
+            sim.tick();
         }
+        actCounter = sim.getActCounter();
 
-        // Only perform these world tasks on the 0th and 30th act of each cycle
-        if (actCounter % 30 == 0) // on the 30th and 60th act of each cycle (0 and 29);
-        {
-            // Spawn flowers on the 0th act of each 60 act cycle (0-59)
-            if (actCounter % 60 == 0)
-            {
-                // Only spawn a Flower if there are less than 100 in the world
-                int nFlowers = getObjects(Flower.class).size();
-                if (nFlowers < MAX_FLOWERS)
-                {
-                    int spawnCount = FLOWER_SPAWN_RATE;
-                    if (nFlowers + spawnCount > MAX_FLOWERS){
-                        spawnCount = MAX_FLOWERS - nFlowers;
-                    }
-                    for (int i = 0; i < spawnCount; i++){
-                        spawnFlower();
-                    }
-
-                    // The zSort method in the Utility class is called if Z_SORT is enabled
-
-                }
+        // Anything that was woken up by this act's ticks (Eggs that cracked)
+        awake.actAll();
+        TickProfiler.mark(TickProfiler.ACTIVE_SET);
+
+        // Run whatever periodic jobs are due (z-sorting, stat bars, the score bar), as long
+        // as there is time left in this act
+        scheduler.runTick(actStart + SCHEDULER_DEADLINE_NANOS);
+        TickProfiler.mark(TickProfiler.SCHEDULER);
+    }
 
+    /**
+     * Keep the paint order matching the y coordinates. Scheduled every act when sorting
+     * incrementally, otherwise every 30 acts.
+     */
+    private void zSort ()
+    {
+        if (Z_SORT && FAST_Z_SORT){
+            if (INCREMENTAL_Z_SORT){
+                // Fix the paint order of anything that was added or moved - a little every act,
+                // so there is never one act that has to do it all
+                bugOrder.repair(Z_REPAIR_BUDGET);
+                flowerOrder.repair(Z_REPAIR_BUDGET);
+                eggOrder.repair(Z_REPAIR_BUDGET);
+            } else {
+                // Sort without making any new objects, or removing and re-adding any Actors
+                flowerOrder.sort();
+                bugOrder.sort();
+                eggOrder.sort();
             }
+        } else if (Z_SORT){
+            // Create a new list that can hold any Actors
+            ArrayList<Actor> tempActors = new ArrayList<Actor>();
 
-            if (Z_SORT){
-                // Create a new list that can hold any Actors
-                ArrayList<Actor> tempActors = new ArrayList<Actor>();
+            // Add all Flower objects to the list
+            tempActors.addAll(actors.getAll(Flower.class));
 
-                // Add all Flower objects to the list
-                tempActors.addAll(getObjects(Flower.class));
+            // Add all SuperSmoothMover objects (Bugs and Frogs) to the list
+            tempActors.addAll(actors.getAll(Bug.class));
+            tempActors.addAll(actors.getAll(Frog.class));
 
-                // Add all SuperSmoothMover objects to the list
-                tempActors.addAll(getObjects(SuperSmoothMover.class));
+            // Now you can sort tempActors as they are all Actors
+            Util.zSort(tempActors, this);
+        }
+        TickProfiler.mark(TickProfiler.Z_SORT);
+    }
 
-                // Now you can sort tempActors as they are all Actors
-                Util.zSort(tempActors, this);
-            }
-            // Update displayed stats
-            statUpdates();
+    /**
+     * Update displayed stats (scheduled every 30 acts)
+     */
+    private void updateScoreBar ()
+    {
+        currentBugs = sim.getCurrentBugs();
 
-            if (scoreShowing)
-            {
-                scoreBar.update(new int[]{currentBugs, maxAliveAtOnce, deaths, averageAge});
-            }        
-        } 
-        if (actCounter % 3000 == 0){ // redistribute every 3000 acts ( to even out bug pathings per act
-            Bug.resetActDistribution();
-            for (Bug b : getObjects(Bug.class)){
-                b.refreshActNumber();
-            }
+        if (scoreShowing)
+        {
+            scoreBar.update(new int[]{currentBugs, sim.getMaxAliveAtOnce(), sim.getDeaths(), sim.getAverageAge()});
+        }
+        TickProfiler.mark(TickProfiler.SCORE_BAR);
+    }
+
+    /**
+     * Catch up the bars of the Flowers that have been nibbled (scheduled every
+     * FLOWER_BAR_PERIOD acts).
+     */
+    private void updateFlowerBars ()
+    {
+        nibbledFlowers.actAll();
+        TickProfiler.mark(TickProfiler.BAR_UPDATES);
+    }
+
+    /**
+     * Show the slowest parts of the act along the bottom of the screen, while profiling
+     * (scheduled every 60 acts). Building the text isn't free, so nothing is done unless the
+     * profiler has sampled another act since last time.
+     */
+    private void updateProfileLabel ()
+    {
+        long samples = profiler.getSamples();
+        if (profileLabel != null && samples > 0 && samples != profileLabelSamples){
+            profileLabel.update(profiler.getTopSections(3));
+            profileLabelSamples = samples;
+        }
+    }
+
+    /**
+     * Start timing each part of the act (one act out of every PROFILE_SAMPLE_EVERY), and show the
+     * slowest parts along the bottom of the screen. analyzeMe() prints the whole breakdown.
+     * (Right-click the World to call this.)
+     */
+    public void startProfiler ()
+    {
+        profiler.start();
+        if (profileLabel == null){
+            profileLabel = new SuperDisplayLabel(Color.BLACK, Color.WHITE, new Font("Trebuchet", false, false, 14), 24, "Profiling...");
+            profileLabelSamples = 0;
+            addObject(profileLabel, getWidth() / 2, 0);
+            // SuperDisplayLabel puts itself at the top, so move it down to the bottom
+            profileLabel.setLocation(getWidth() / 2, getHeight() - profileLabel.getImage().getHeight() / 2);
+        }
+    }
+
+    /**
+     * Stop the profiler and take its label off the screen. What it has recorded so far can still
+     * be printed with analyzeMe(). (Right-click the World to call this.)
+     */
+    public void stopProfiler ()
+    {
+        profiler.stop();
+        if (profileLabel != null){
+            removeObject(profileLabel);
+            profileLabel = null;
         }
+    }
+
+    /**
+     * Turn turbo mode on or off. In turbo mode, each act runs several ticks of the simulation
+     * and the speed slider is set all the way up, so a long run can be fast-forwarded as fast as
+     * the computer allows. Everything that is only for drawing (catching the Actors up, bars,
+     * the score bar and the z-sort) still happens once per act, so it is skipped for the ticks
+     * in between. The simulation itself does exactly the same thing at any speed.
+     *
+     * @param ticks     how many ticks to run per act - 1 is normal speed
+     */
+    public void setTurbo (int ticks)
+    {
+        ticksPerAct = Math.max(1, ticks);
+        Greenfoot.setSpeed(ticksPerAct > 1 ? 100 : 50);
+    }
 
+    /**
+     * @return int  how many simulation ticks are run per act (1 unless in turbo mode)
+     */
+    public int getTurbo ()
+    {
+        return ticksPerAct;
     }
 
-    public static int getActNumber() {
-        // return a number from 0 - 59
-        return actCounter % 60;
+    /**
+     * @return TaskScheduler    the scheduler for periodic jobs, such as updating stat bars
+     */
+    public TaskScheduler getScheduler ()
+    {
+        return scheduler;
     }
 
     /**
@@ -199,16 +394,195 @@ public class DesertWorld extends World
      */
     private void spawnBug ()
     {
-        addObject (new Bug (), Greenfoot.getRandomNumber(800), Greenfoot.getRandomNumber(480)+120);
+        inputLog.perform(sim, InputLog.SPAWN_BUG);
+        scoreShowing = true;
+    }
+
+    /**
+     * Called by Greenfoot when the scenario is run - start logging events, if they are being
+     * logged. (The log is added to each time, so one file can hold a run with pauses in it.)
+     */
+    public void started ()
+    {
+        if (EVENT_LOG_FILE != null && eventLog == null){
+            try {
+                eventLog = new EventLog(EVENT_LOG_FILE, EVENT_LOG_CAPACITY);
+                sim.setEventLog(eventLog);
+            } catch (IOException e) {
+                System.out.println("Could not open event log: " + e);
+            }
+        }
+    }
+
+    /**
+     * Called by Greenfoot when the scenario is paused - save the buttons pressed so far, if
+     * they are being recorded, and finish writing the event log.
+     */
+    public void stopped ()
+    {
+        if (RECORD_INPUT_FILE != null && !replaying){
+            try {
+                inputLog.save(RECORD_INPUT_FILE);
+            } catch (IOException e) {
+                System.out.println("Could not save inputs: " + e);
+            }
+        }
+        if (eventLog != null){
+            sim.setEventLog(null);
+            try {
+                eventLog.close();
+            } catch (IOException e) {
+                System.out.println("Could not write event log: " + e);
+            }
+            if (eventLog.getDropped() > 0){
+                System.out.println("Event log dropped " + eventLog.getDropped() + " events");
+            }
+            eventLog = null;
+        }
+    }
+
+    /**
+     * Add an Actor to the World, and to the ActorRegistry.
+     */
+    @Override
+    public void addObject (Actor object, int x, int y)
+    {
+        super.addObject(object, x, y);
+        actors.add(object);
+    }
+
+    /**
+     * Remove an Actor from the World, and from the ActorRegistry.
+     */
+    @Override
+    public void removeObject (Actor object)
+    {
+        super.removeObject(object);
+        actors.remove(object);
+    }
+
+    /**
+     * Remove a group of Actors, one at a time so each one comes out of the ActorRegistry too.
+     * (The group is copied first, in case it is one of the registry's own lists.)
+     */
+    @Override
+    public void removeObjects (Collection<? extends Actor> objects)
+    {
+        for (Actor a : new ArrayList<Actor>(objects)){
+            removeObject(a);
+        }
+    }
+
+    /**
+     * @return ActorRegistry    every Actor in this World, by class - use this instead of
+     *                          getObjects() to count or loop over one kind of Actor
+     */
+    public ActorRegistry getActors ()
+    {
+        return actors;
+    }
+
+    /**
+     * Save the whole simulation to CHECKPOINT_FILE, so it can be picked up again later with
+     * restoreCheckpoint(). (Right-click the World to call this.)
+     */
+    public void saveCheckpoint ()
+    {
+        try {
+            Checkpoint.save(sim, CHECKPOINT_FILE);
+            System.out.println("Saved act " + sim.getActCounter() + " to " + CHECKPOINT_FILE);
+        } catch (IOException e) {
+            System.out.println("Could not save checkpoint: " + e);
+        }
+    }
+
+    /**
+     * Replace the simulation with the one saved in CHECKPOINT_FILE, and the Actors on the
+     * screen with ones for the saved simulation. (Right-click the World to call this.)
+     */
+    public void restoreCheckpoint ()
+    {
+        BugSimulation restored;
+        try {
+            restored = Checkpoint.load(CHECKPOINT_FILE, null);
+        } catch (IOException e) {
+            System.out.println("Could not load checkpoint: " + e);
+            return;
+        }
+        // Take down the Actors for the old simulation (into the pools), then make Actors for
+        // everything in the new one, the same as if it had just been added
+        removeSimulationActors();
+        sim = restored;
+        sim.setParallel(PARALLEL_TICK);
+        addSimulationActors();
+        sim.setListener(this);
+        sim.setEventLog(eventLog);
+        if (replaying){
+            inputLog.skipTo(sim.getActCounter());
+        } else {
+            // Inputs recorded after the Checkpoint didn't happen in this simulation
+            inputLog.truncateAfter(sim.getActCounter());
+        }
+        actCounter = sim.getActCounter();
         scoreShowing = true;
+        updateScoreBar();
+    }
+
+    private void removeSimulationActors ()
+    {
+        BugPopulation bugs = sim.getBugPopulation();
+        for (int i = 0; i < bugs.size(); i++){
+            bugRemoved(bugs.getHandle(i), false);
+        }
+        for (SimFlower f : sim.getFlowers()){
+            flowerRemoved(f);
+        }
+        for (SimEgg e : sim.getEggs()){
+            eggRemoved(e);
+        }
+        for (SimDeadBug d : sim.getDeadBugs()){
+            deadBugRemoved(d);
+        }
+        for (SimFrog f : sim.getFrogs()){
+            removeObject((Actor)f.getView());
+            f.setView(null);
+        }
+    }
+
+    private void addSimulationActors ()
+    {
+        for (SimFlower f : sim.getFlowers()){
+            flowerAdded(f);
+        }
+        BugPopulation bugs = sim.getBugPopulation();
+        for (int i = 0; i < bugs.size(); i++){
+            bugAdded(bugs.getHandle(i));
+        }
+        for (SimEgg e : sim.getEggs()){
+            eggAdded(e);
+        }
+        for (SimDeadBug d : sim.getDeadBugs()){
+            deadBugAdded(d);
+        }
+        for (SimFrog f : sim.getFrogs()){
+            frogAdded(f);
+        }
+    }
+
+    /**
+     * @return Scenario     the Scenario this World started from (including its seed)
+     */
+    public Scenario getScenario ()
+    {
+        return scenario;
     }
 
     /**
-     * Method to spawn a flower
+     * @return BugSimulation    the simulation being shown in this World
      */
-    private void spawnFlower ()
+    public BugSimulation getSimulation ()
     {
-        addObject (new Flower(), Greenfoot.getRandomNumber(800), Greenfoot.getRandomNumber(480)+50);
+        return sim;
     }
 
     /**
@@ -224,50 +598,202 @@ public class DesertWorld extends World
         return Math.hypot (a.getX() - b.getX(), a.getY() - b.getY());
     }
 
-    private static void updateTimer(){
+    // SimulationListener methods - keep one Actor in the World for everything in the simulation.
+    // Removed Actors go into a pool, and are reset and used again for the next thing added.
+
+    public void bugAdded (SimBug bug)
+    {
+        Bug view = POOL_ACTORS ? bugPool.take() : null;
+        if (view == null){
+            view = new Bug(bug);
+        } else {
+            view.reset(bug);
+        }
+        bug.setView(view);
+        addObject(view, bug.getX(), bug.getY());
+        bugOrder.add(view);
+        view.setZSorter(bugOrder);
+    }
+
+    public void bugRemoved (SimBug bug, boolean eaten)
+    {
+        Bug view = (Bug)bug.getView();
+        bugOrder.remove(view);
+        removeObject(view);
+        bug.setView(null);
+        view.release(); // the energy bar doesn't remove itself (see SuperStatBar.setReactive)
+        if (POOL_ACTORS){
+            bugPool.give(view);
+        }
+    }
+
+    public void flowerAdded (SimFlower flower)
+    {
+        Flower view = POOL_ACTORS ? flowerPool.take() : null;
+        if (view == null){
+            view = new Flower(flower);
+        } else {
+            view.reset(flower);
+        }
+        flower.setView(view);
+        addObject(view, flower.getX(), flower.getY());
+        flowerOrder.add(view);
+    }
+
+    public void flowerRemoved (SimFlower flower)
+    {
+        Flower view = (Flower)flower.getView();
+        flowerOrder.remove(view);
+        removeObject(view);
+        flower.setView(null);
+        view.release(); // the nibbles bar doesn't remove itself (see SuperStatBar.setReactive)
+        if (POOL_ACTORS){
+            flowerPool.give(view);
+        }
+    }
+
+    public void eggAdded (SimEgg egg)
+    {
+        Egg view = POOL_ACTORS ? eggPool.take() : null;
+        if (view == null){
+            view = new Egg(egg);
+        } else {
+            view.reset(egg);
+        }
+        egg.setView(view);
+        addObject(view, egg.getX(), egg.getY());
+        eggOrder.add(view);
+    }
+
+    public void eggRemoved (SimEgg egg)
+    {
+        Egg view = (Egg)egg.getView();
+        eggOrder.remove(view);
+        removeObject(view);
+        egg.setView(null);
+        if (POOL_ACTORS){
+            view.release();
+            eggPool.give(view);
+        }
+    }
+
+    public void deadBugAdded (SimDeadBug deadBug)
+    {
+        DeadBug view = POOL_ACTORS ? deadBugPool.take() : null;
+        if (view == null){
+            view = new DeadBug(deadBug);
+        } else {
+            view.reset(deadBug);
+        }
+        deadBug.setView(view);
+        addObject(view, deadBug.getX(), deadBug.getY());
+    }
+
+    public void deadBugRemoved (SimDeadBug deadBug)
+    {
+        DeadBug view = (DeadBug)deadBug.getView();
+        removeObject(view);
+        deadBug.setView(null);
+        if (POOL_ACTORS){
+            view.release();
+            deadBugPool.give(view);
+        }
+    }
+
+    public void flowerNibbled (SimFlower flower)
+    {
+        Flower view = (Flower)flower.getView();
+        if (view != null){
+            nibbledFlowers.wake(view);
+        }
+    }
+
+    public void eggCracked (SimEgg egg)
+    {
+        Egg view = (Egg)egg.getView();
+        if (view != null){
+            awake.wake(view);
+        }
+    }
+
+    public void frogAdded (SimFrog frog)
+    {
+        Frog view = new Frog(frog);
+        frog.setView(view);
+        addObject(view, frog.getX(), frog.getY());
+    }
+
+    private void updateTimer(){
         // capture current time
         thisAct = System.nanoTime();
-        // determine how much time has passed
+        // determine how much time has passed (nothing to compare to on the first act)
         elapsed = thisAct - lastAct;
-        //System.out.print(currentBugs + " bugs: " + elapsed/1000000000.0);
-        bugCounts[actCounter] = currentBugs;
-        actTimes[actCounter] = elapsed/1000000000.0;
+        if (lastAct != -1){
+            tickRecorder.record(actCounter, elapsed, currentBugs);
+        }
         // remember when this act was for next time
         lastAct = thisAct;
     }
 
+    /**
+     * Print where the time in each act has gone (if the profiler has been on), a summary of how
+     * long acts have been taking, and list any recent acts that took too long.
+     */
     public void analyzeMe () {
-        analyze();
+        if (profiler.getSamples() > 0){
+            System.out.print(profiler.getReport());
+        }
+        if (tickRecorder == null){
+            return;
+        }
+        System.out.println(tickRecorder.getSummary());
+        if (POOL_ACTORS){
+            printPoolStats();
+        }
+        System.out.println("Nibbled Flowers - " + nibbledFlowers.getSummary());
+        tickRecorder.printSlowTicks(SLOW_TICK_NANOS);
     }
 
-    public static void analyze (){
-        String results = "";
-        for (int i = 0; i < actCounter-1; i++){
-            if (actTimes[i] > 0.0163){
-                System.out.println("Act " + i + " (Bugs = " + bugCounts[i] + "): " + actTimes[i]);
-            }
-        }
+    /**
+     * Print how many Actors of each kind have been made new and how many were reused.
+     */
+    public void printPoolStats ()
+    {
+        System.out.println("Bug pool - " + bugPool.getSummary());
+        System.out.println("Flower pool - " + flowerPool.getSummary());
+        System.out.println("Egg pool - " + eggPool.getSummary());
+        System.out.println("DeadBug pool - " + deadBugPool.getSummary());
+    }
 
-        // return results;
+    /**
+     * @return TickProfiler     where the time in each act goes (see startProfiler)
+     */
+    public TickProfiler getProfiler ()
+    {
+        return profiler;
+    }
+
+    /**
+     * @return TickRecorder     how long each act has been taking, or null if TRACK_PERF is off
+     */
+    public TickRecorder getTickRecorder ()
+    {
+        return tickRecorder;
     }
 
     /**
-     * Add to the list of Deaths when a bug dies, to be used for stat updates
+     * @return ZSorter  the paint order of the Bugs (for benchmarking)
      */
-    public void addDeath (int age)
+    public ZSorter getBugOrder ()
     {
-        deaths++;
-        ageTotalForDeathAvg += age;
-        averageAge = (int)((double)ageTotalForDeathAvg / (double)deaths);
+        return bugOrder;
     }
 
     /**
-     * Update the statistics
+     * @return ZSorter  the paint order of the Flowers (for benchmarking)
      */
-    private void statUpdates ()
+    public ZSorter getFlowerOrder ()
     {
-        currentBugs = getObjects(Bug.class).size();
-        if (currentBugs > maxAliveAtOnce)
-            maxAliveAtOnce = currentBugs;
+        return flowerOrder;
     }
 }
@@ -6,63 +6,93 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
  * between. Once all Bugs have left the Egg, it will remove itself
  * from the World.
  * 
+ * The rules live in SimEgg - this class shows one on the screen.
+ * 
  * @author Jordan Cohen
  * @version Feb 2017
  */
-public class Egg extends Actor
+public class Egg extends Actor implements SimView, Wakeable
 {
-    private int actsUntilHatch;
-    private int spawnCount;
-    private int spawnsLeft;
-    private int hatchCounter;
-    private int delayBetweenHatches;
-    private int delayBetweenHatchesCounter;
+    private SimEgg model;
+    private boolean cracked;
+    private int zIndex = -1;
     
-    private GreenfootImage eggImage, crackedImage;
+    private static GreenfootImage eggImage, crackedImage;
+
+    public Egg (SimEgg model)
+    {
+        this.model = model;
+        if (eggImage == null){
+            eggImage = ImageRegistry.getEgg(false);
+            crackedImage = ImageRegistry.getEgg(true);
+        }
+        cracked = model.isCracked();
+        setImage(cracked ? crackedImage : eggImage);
+    }
 
-    public Egg ()
+    /**
+     * Get a used Egg (from an ActorPool) ready to show a new SimEgg, as if it had just been
+     * made. Call this before adding it to the World.
+     */
+    public void reset (SimEgg newModel)
     {
-        eggImage = new GreenfootImage("BlueEgg.png");
-        crackedImage = new GreenfootImage("BlueEgg_2.png");
-        setImage(eggImage);
-        // Set acts until first bug is hatched
-        actsUntilHatch = 350;
-        // Generate a random number between 2 and 4 to determine how many
-        // bugs will spawn from this Egg
-        spawnCount = Greenfoot.getRandomNumber(2) + 2;
-        spawnsLeft = spawnCount;
-        // Set delay
-        delayBetweenHatches = 150;
-        // Starting value for timer
-        delayBetweenHatchesCounter = delayBetweenHatches;
+        model = newModel;
+        zIndex = -1;
+        cracked = model.isCracked();
+        setImage(cracked ? crackedImage : eggImage);
     }
 
     /**
-     * Act - do whatever the Egg wants to do. This method is called whenever
-     * the 'Act' or 'Run' button gets pressed in the environment.
+     * Called when this Egg is taken out of the World to be pooled.
      */
-    public void act() 
+    public void release ()
     {
-        // Wait for hatching to start if still counting down
-        if (actsUntilHatch > 0)
+        model = null;
+    }
+
+    /**
+     * An Egg only changes once, when it cracks, so it doesn't act. When it cracks, the World
+     * wakes it (see ActiveSet), and this shows the cracked image.
+     */
+    public boolean wakeAct ()
+    {
+        if (model != null && !cracked && model.isCracked())
         {
-            actsUntilHatch--;
+            setImage (crackedImage);
+            cracked = true;
         }
-        // Once hatching starts, spawn Bugs with delay in between
-        else
-        {
-            delayBetweenHatchesCounter--;
-            if (delayBetweenHatchesCounter == 0)
-            {
-                getWorld().addObject (new Bug (0.50), getX(), getY());   
-                delayBetweenHatchesCounter = delayBetweenHatches;
-                spawnsLeft--;
-                if (spawnsLeft <= spawnCount / 2){
-                    setImage (crackedImage);
-                }
-            }
-            if (spawnsLeft == 0)
-                getWorld().removeObject(this);
+        return false;
+    }
+
+    /**
+     * @return SimEgg   the SimEgg that this Egg is showing
+     */
+    public SimEgg getModel ()
+    {
+        return model;
+    }
+
+    /**
+     * Switch to showing a different SimEgg (used by the z-sort, see ZSorter).
+     */
+    public void setModel (SimEntity newModel)
+    {
+        model = (SimEgg)newModel;
+        model.setView(this);
+        setLocation(model.getX(), model.getY());
+        if (cracked != model.isCracked()){
+            cracked = model.isCracked();
+            setImage(cracked ? crackedImage : eggImage);
         }
-    }    
+    }
+
+    public int getZIndex ()
+    {
+        return zIndex;
+    }
+
+    public void setZIndex (int index)
+    {
+        zIndex = index;
+    }
 }
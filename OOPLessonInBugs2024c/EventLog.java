@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes everything that happens in a BugSimulation (Bugs born and dying, nibbles, Eggs laid,
+ * Flowers spawned and bombed) to a binary file, for looking at the population in detail later -
+ * instead of just the number of deaths and the average age.
+ *
+ * <p>The simulation must never have to wait for the disk, so log() doesn't write anything. It
+ * just puts the event in a queue, and a background thread takes events out of the queue and
+ * writes them to the file. The queue is a ring of plain arrays made once at the start, with one
+ * counter for the simulation (the writing end) and one for the background thread (the reading
+ * end), so nothing is ever locked and nothing new is made per event. If the background thread
+ * falls so far behind that the queue fills up, new events are dropped (and counted) rather than
+ * waiting.</p>
+ *
+ * <p>The file is only ever added to. Each event is one record: an int with the length of the
+ * rest of the record (17), then the type (1 byte), then the tick, x, y and value (4 ints), all
+ * little-endian. What the value means depends on the type - see the constants.</p>
+ */
+public class EventLog
+{
+    // Event types
+    public static final byte BUG_SPAWNED = 1;    // value: 1 if big
+    public static final byte BUG_HATCHED = 2;    // value: 1 if big
+    public static final byte BUG_STARVED = 3;    // value: age
+    public static final byte BUG_EATEN = 4;      // value: age
+    public static final byte NIBBLE = 5;         // value: energy gained
+    public static final byte EGG_LAID = 6;       // value: age of the Bug that laid it
+    public static final byte FLOWER_SPAWNED = 7; // value: nibbles
+    public static final byte FLOWERS_BOMBED = 8; // value: how many Flowers were removed
+
+    private static final int RECORD_SIZE = 17;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // The queue - one slot in each array for each event
+    private final int mask;
+    private final byte[] types;
+    private final int[] ticks;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] values;
+    private final AtomicLong head = new AtomicLong(); // the next event to write to the file
+    private final AtomicLong tail = new AtomicLong(); // the next free slot
+    private long knownHead; // the simulation's copy of head, so it doesn't read it every time
+    private long dropped;
+
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile IOException error;
+
+    /**
+     * Open a file (adding to it if it already exists) and start writing events to it.
+     *
+     * @param capacity  how many events the queue can hold - rounded up to a power of 2
+     */
+    public EventLog (String filename, int capacity) throws IOException
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        types = new byte[size];
+        ticks = new int[size];
+        xs = new int[size];
+        ys = new int[size];
+        values = new int[size];
+
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        running = true;
+        writer = new Thread(() -> drain(), "EventLog writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Add an event to the queue. This never waits - if the queue is full, the event is dropped.
+     *
+     * @return boolean  true if the event was queued
+     */
+    public boolean log (byte type, int tick, int x, int y, int value)
+    {
+        long t = tail.get();
+        if (t - knownHead > mask){
+            knownHead = head.get();
+            if (t - knownHead > mask){
+                dropped++;
+                return false;
+            }
+        }
+        int i = (int)(t & mask);
+        types[i] = type;
+        ticks[i] = tick;
+        xs[i] = x;
+        ys[i] = y;
+        values[i] = value;
+        tail.lazySet(t + 1); // publish the event to the writer thread
+        return true;
+    }
+
+    /**
+     * The background thread - keep moving events from the queue to the file until closed.
+     */
+    private void drain ()
+    {
+        ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (true){
+                boolean stopping = !running;
+                long h = head.get();
+                long t = tail.get();
+                if (h == t){
+                    if (stopping){
+                        return;
+                    }
+                    LockSupport.parkNanos(1000000);
+                    continue;
+                }
+                while (h < t){
+                    if (out.remaining() < 4 + RECORD_SIZE){
+                        write(out);
+                    }
+                    int i = (int)(h & mask);
+                    out.putInt(RECORD_SIZE);
+                    out.put(types[i]);
+                    out.putInt(ticks[i]);
+                    out.putInt(xs[i]);
+                    out.putInt(ys[i]);
+                    out.putInt(values[i]);
+                    h++;
+                }
+                head.lazySet(h); // these slots can be used again
+                write(out);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    private void write (ByteBuffer out) throws IOException
+    {
+        out.flip();
+        while (out.hasRemaining()){
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Write out everything still in the queue, then close the file. Only call this from the
+     * thread that calls log().
+     */
+    public void close () throws IOException
+    {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (error != null){
+            throw error;
+        }
+    }
+
+    /**
+     * @return long     how many events were dropped because the queue was full
+     */
+    public long getDropped ()
+    {
+        return dropped;
+    }
+
+    /**
+     * @return int  how many events are waiting to be written
+     */
+    public int getPending ()
+    {
+        return (int)(tail.get() - head.get());
+    }
+}
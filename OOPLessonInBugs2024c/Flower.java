@@ -5,72 +5,100 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
  * grants hp to bugs that nibble it until it has no nibbles left 
  * to give, at which point it removes itself from the World
  * 
+ * The rules live in SimFlower - this class shows one on the screen,
+ * along with a bar for how many nibbles it has left.
+ * 
  * @author Jordan Cohen 
  * @version Feb 2017
  */
-public class Flower extends Actor
+public class Flower extends Actor implements SimView, Wakeable
 {
     // Declare instance variables
-    private int nibbles;
-    private int hpPerNibble;
+    private SimFlower model;
     // Create hpBar object for myself
     private SuperStatBar hpBar;
+    private int zIndex = -1;
 
     // Constructor for Flower
-    public Flower ()
+    public Flower (SimFlower model)
     {
-        // Set some initial values for my variables based on constants in the World
-        nibbles = DesertWorld.NIBBLES_PER_FLOWER;
-        hpPerNibble = DesertWorld.HP_PER_NIBBLE;
+        this.model = model;
         // Create my own HealthBar object - this is an instance object. 
         // 
-        hpBar = new SuperStatBar (nibbles, nibbles, this, 32, 6, 20, Color.PINK, Color.BLUE, true, Color.YELLOW, 1); // Construct a new HP bar with myself (this)
+        hpBar = new SuperStatBar (model.getSimulation().getNibblesPerFlower(), model.getNibbles(), this, 32, 6, 20, Color.PINK, Color.BLUE, true, Color.YELLOW, 1); // Construct a new HP bar with myself (this)
+        hpBar.setReactive(true); // Flowers don't move, so the bar only needs to move when told
 
     }
 
-    public void addedToWorld (World w)
+    /**
+     * Get a used Flower (from an ActorPool) ready to show a new SimFlower, as if it had just
+     * been made. Call this before adding it to the World.
+     */
+    public void reset (SimFlower newModel)
     {
-        w.addObject (hpBar, getX(), getY());
-        hpBar.update(nibbles);
+        model = newModel;
+        zIndex = -1;
+        hpBar.reset(model.getSimulation().getNibblesPerFlower(), model.getNibbles());
     }
 
     /**
-     * Act - do whatever the Flower wants to do. This method is called whenever
-     * the 'Act' or 'Run' button gets pressed in the environment.
+     * Called when this Flower is taken out of the World - take the bar out of the World too.
      */
-    public void act() 
+    public void release ()
     {
-        if (DesertWorld.getActNumber() % 15 == 0) hpBar.update(nibbles);
-        // check if I have been completely eaten, and if so, remove me
-        checkAndRemove();
-    }    
+        if (hpBar.getWorld() != null){
+            hpBar.getWorld().removeObject(hpBar);
+        }
+        model = null;
+    }
+
+    public void addedToWorld (World w)
+    {
+        if (hpBar.getWorld() == null){ // still there if this Flower was taken out and put back (e.g. by Util.zSort)
+            w.addObject (hpBar, getX(), getY());
+        }
+        hpBar.update(model.getNibbles());
+    }
 
     /**
-     * Take a bite out of this Flower. 
-     * 
-     * @return int  The amount of HP that has been consumed
+     * A Flower has nothing to do until it is nibbled, so it doesn't act. When it is nibbled, the
+     * World wakes it (see ActiveSet), and this catches the bar up.
      */
-    public int nibble ()
+    public boolean wakeAct ()
     {
-        
-        if (nibbles >= hpPerNibble) // If there is enough nibbles left..
-        {
-            nibbles -= hpPerNibble;
-            return hpPerNibble;
-        }
-        else // If nibbles left is just about empty, return last little bit
-        {
-            int tempNibbles = nibbles;
-            nibbles = 0;
-            return tempNibbles;
+        if (model != null && getWorld() != null){
+            hpBar.update(model.getNibbles());
         }
+        return false;
+    }
+
+    /**
+     * @return SimFlower    the SimFlower that this Flower is showing
+     */
+    public SimFlower getModel ()
+    {
+        return model;
     }
 
-    private void checkAndRemove ()
+    /**
+     * Switch to showing a different SimFlower (used by the z-sort, see ZSorter).
+     */
+    public void setModel (SimEntity newModel)
     {
-        if (nibbles == 0) // If I'm out of nibbles to give...
-        {
-            getWorld().removeObject(this); // ... remove me from the World
-        }
+        model = (SimFlower)newModel;
+        model.setView(this);
+        setLocation(model.getX(), model.getY());
+        hpBar.moveMe();
+        hpBar.update(model.getNibbles());
+    }
+
+    public int getZIndex ()
+    {
+        return zIndex;
+    }
+
+    public void setZIndex (int index)
+    {
+        zIndex = index;
     }
 }
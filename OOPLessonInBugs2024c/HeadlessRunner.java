@@ -0,0 +1,71 @@
+/**
+ * Runs a BugSimulation with no display at all, as fast as the computer allows. Useful for
+ * capacity planning and long regression runs on machines without a screen.
+ *
+ * <p>This class (and the Sim classes it uses) does not need Greenfoot, so it can be compiled and
+ * run on its own:</p>
+ * <p><code>javac BugSimulation.java BugPopulation.java HeadlessRunner.java Sim*.java SpatialGrid.java Scenario.java InputLog.java</code><br>
+ * <code>java HeadlessRunner [ticks] [starting bugs] [acts between spawned bugs] [parallel]</code><br>
+ * or, to run a saved Scenario (and play back recorded button presses, if given):<br>
+ * <code>java HeadlessRunner scenario.properties [inputs.txt] [parallel]</code></p>
+ */
+public class HeadlessRunner
+{
+    public static void main (String[] args) throws java.io.IOException
+    {
+        if (args.length > 0 && args[0].endsWith(".properties")){
+            runScenario(args);
+            return;
+        }
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int startingBugs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int spawnEvery = args.length > 2 ? Integer.parseInt(args[2]) : 0; // 0 = never press "Spawn Bug"
+        boolean parallel = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        BugSimulation sim = new BugSimulation(800, 560);
+        sim.setParallel(parallel);
+        for (int i = 0; i < startingBugs; i++){
+            sim.spawnBug();
+        }
+        sim.addFrog(new SimFrog(sim), sim.getWidth() / 2, sim.getHeight() / 2); // place frog in the middle
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= ticks; i++){
+            if (spawnEvery > 0 && i % spawnEvery == 0){
+                sim.spawnBug();
+            }
+            sim.tick();
+        }
+        printResults(sim, ticks, System.nanoTime() - start);
+    }
+
+    /**
+     * Run a Scenario for its number of ticks, playing back an InputLog if there is one.
+     */
+    private static void runScenario (String[] args) throws java.io.IOException
+    {
+        Scenario scenario = Scenario.load(args[0]);
+        InputLog inputs = args.length > 1 && !args[1].equals("-") ? InputLog.load(args[1]) : new InputLog();
+        boolean parallel = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        BugSimulation sim = scenario.createSimulation(null);
+        sim.setParallel(parallel);
+        System.out.println("Scenario: " + args[0] + " (seed " + scenario.getSeed() + ", " + inputs.size() + " inputs)");
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= scenario.getTicks(); i++){
+            inputs.replay(sim);
+            sim.tick();
+        }
+        printResults(sim, scenario.getTicks(), System.nanoTime() - start);
+    }
+
+    private static void printResults (BugSimulation sim, int ticks, long nanos)
+    {
+        double seconds = nanos / 1000000000.0;
+        System.out.println("Ticks: " + ticks + " in " + seconds + "s (" + (int)(ticks / seconds) + " ticks/s)");
+        System.out.println("Bugs: " + sim.getBugCount() + "  Max: " + sim.getMaxAliveAtOnce()
+            + "  Dead: " + sim.getDeaths() + "  Avg. Life: " + sim.getAverageAge()
+            + "  Flowers: " + sim.getFlowerCount());
+    }
+}
@@ -0,0 +1,91 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.HashMap;
+
+/**
+ * One place to get every image the scenario uses. Each image is loaded from disk (and scaled,
+ * mirrored or faded) only once, the first time it is asked for, and then the same image is handed
+ * out to every Actor that needs it - so a burst of 100 new Eggs doesn't mean 200 more PNG files
+ * being decoded.
+ *
+ * <p>Because the images are shared, they must never be changed - don't draw on them, scale them or
+ * set their transparency. To get a faded skull, for example, ask for the right frame with
+ * getSkull(transparency) rather than changing the transparency yourself.</p>
+ */
+public class ImageRegistry
+{
+    // Images loaded straight from a file, by file name
+    private static final HashMap<String, GreenfootImage> files = new HashMap<String, GreenfootImage>();
+
+    private static GreenfootImage littleLadybug, bigLadybug;
+    private static GreenfootImage frogRight, frogLeft;
+    private static GreenfootImage[] skullFrames; // one for every transparency from 0 to 255
+
+    /**
+     * @param filename  the name of an image in the images folder
+     * @return GreenfootImage   the image, shared - do not change it
+     */
+    public static GreenfootImage get (String filename)
+    {
+        GreenfootImage image = files.get(filename);
+        if (image == null){
+            image = new GreenfootImage(filename);
+            files.put(filename, image);
+        }
+        return image;
+    }
+
+    /**
+     * @param cracked   true for the cracked Egg
+     */
+    public static GreenfootImage getEgg (boolean cracked)
+    {
+        return get(cracked ? "BlueEgg_2.png" : "BlueEgg.png");
+    }
+
+    /**
+     * @param big   true for the big Bug, false for the little one (3/4 size)
+     */
+    public static GreenfootImage getLadybug (boolean big)
+    {
+        if (bigLadybug == null){
+            bigLadybug = get("ladybug_02.png");
+            littleLadybug = new GreenfootImage(bigLadybug);
+            littleLadybug.scale((int)(littleLadybug.getWidth()*3.0/4.0), (int)(littleLadybug.getHeight()*3.0/4.0));
+        }
+        return big ? bigLadybug : littleLadybug;
+    }
+
+    /**
+     * @param right     true for the Frog facing right, false for facing left
+     */
+    public static GreenfootImage getFrog (boolean right)
+    {
+        if (frogRight == null){
+            frogRight = new GreenfootImage(get("frog.png")); // original facing right
+            frogRight.scale(frogRight.getWidth() * 2, frogRight.getHeight() * 2);
+
+            frogLeft = new GreenfootImage(frogRight); // create left-facing by mirroring
+            frogLeft.mirrorHorizontally();
+        }
+        return right ? frogRight : frogLeft;
+    }
+
+    /**
+     * The skull for a Dead Bug, faded to the given transparency. The whole fade is made the first
+     * time this is called, so after that fading is just a matter of picking the next frame.
+     *
+     * @param transparency  from 0 (invisible) to 255 (solid)
+     */
+    public static GreenfootImage getSkull (int transparency)
+    {
+        if (skullFrames == null){
+            GreenfootImage skull = get("skull.png");
+            skullFrames = new GreenfootImage[256];
+            for (int t = 0; t < skullFrames.length; t++){
+                skullFrames[t] = new GreenfootImage(skull);
+                skullFrames[t].setTransparency(t);
+            }
+        }
+        return skullFrames[Math.max(0, Math.min(255, transparency))];
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * A list of the buttons that were pressed during a run ("Spawn Bug" and "Bomb Flowers") and the
+ * tick each one happened on. Record one while running the DesertWorld, and it can be played back
+ * later - in the World or in the HeadlessRunner - so the same Scenario gets exactly the same
+ * inputs at exactly the same ticks.
+ *
+ * <p>The file has one input per line, for example <code>1200 spawnBug</code>. Lines starting
+ * with # are ignored.</p>
+ */
+public class InputLog
+{
+    public static final String SPAWN_BUG = "spawnBug";
+    public static final String BOMB_FLOWERS = "bombFlowers";
+
+    private ArrayList<Integer> ticks;
+    private ArrayList<String> inputs;
+    private int next; // the next input to play back
+
+    public InputLog ()
+    {
+        ticks = new ArrayList<Integer>();
+        inputs = new ArrayList<String>();
+    }
+
+    /**
+     * Do an input now, and add it to the log. Inputs are done before the simulation's next
+     * tick, so that is the tick they are saved with.
+     */
+    public void perform (BugSimulation sim, String input)
+    {
+        ticks.add(sim.getActCounter() + 1);
+        inputs.add(input);
+        apply(sim, input);
+    }
+
+    /**
+     * Play back every input that belongs before the simulation's next tick. Call this right
+     * before each tick.
+     */
+    public void replay (BugSimulation sim)
+    {
+        int tick = sim.getActCounter() + 1;
+        while (next < ticks.size() && ticks.get(next) <= tick){
+            apply(sim, inputs.get(next));
+            next++;
+        }
+    }
+
+    /**
+     * Start playing back from just after the given tick - for example after loading a
+     * Checkpoint, so inputs from before it aren't played again.
+     */
+    public void skipTo (int tick)
+    {
+        next = 0;
+        while (next < ticks.size() && ticks.get(next) <= tick){
+            next++;
+        }
+    }
+
+    /**
+     * Throw away every input from after the given tick - for example when a Checkpoint is
+     * loaded while recording, so the inputs recorded from then on carry on from the
+     * Checkpoint's tick instead of coming after ones that no longer happened.
+     */
+    public void truncateAfter (int tick)
+    {
+        int keep = ticks.size();
+        while (keep > 0 && ticks.get(keep - 1) > tick){
+            keep--;
+        }
+        ticks.subList(keep, ticks.size()).clear();
+        inputs.subList(keep, inputs.size()).clear();
+        next = Math.min(next, keep);
+    }
+
+    private static void apply (BugSimulation sim, String input)
+    {
+        if (input.equals(SPAWN_BUG)){
+            sim.spawnBug();
+        } else if (input.equals(BOMB_FLOWERS)){
+            sim.bombFlowers();
+        }
+    }
+
+    /**
+     * @return int  the number of inputs in this log
+     */
+    public int size ()
+    {
+        return ticks.size();
+    }
+
+    /**
+     * Load a log from a file.
+     */
+    public static InputLog load (String filename) throws IOException
+    {
+        InputLog log = new InputLog();
+        BufferedReader in = new BufferedReader(new FileReader(filename));
+        try {
+            String line;
+            while ((line = in.readLine()) != null){
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")){
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                log.ticks.add(Integer.parseInt(parts[0]));
+                log.inputs.add(parts[1]);
+            }
+        } finally {
+            in.close();
+        }
+        return log;
+    }
+
+    /**
+     * Save this log to a file.
+     */
+    public void save (String filename) throws IOException
+    {
+        PrintWriter out = new PrintWriter(new FileWriter(filename));
+        try {
+            out.println("# tick input");
+            for (int i = 0; i < ticks.size(); i++){
+                out.println(ticks.get(i) + " " + inputs.get(i));
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
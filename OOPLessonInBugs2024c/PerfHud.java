@@ -0,0 +1,163 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * A live performance display, shown just under the score bar: ticks per second, the p99 of the
+ * recent tick times, how many of each kind of Actor there are, and how much garbage collecting
+ * has happened since the last update.
+ *
+ * <p>Something that measures performance shouldn't slow things down itself, or it ends up
+ * measuring mostly itself. So refresh() doesn't make any new objects: the text is written into
+ * the same char array every time (no Strings are built), and it is shown with the char array
+ * version of SuperDisplayLabel.update(), which copies pre-drawn characters onto the same image
+ * instead of drawing a String. It is also only meant to be refreshed every so often (see
+ * DesertWorld.HUD_PERIOD), not every act.</p>
+ */
+public class PerfHud extends SuperDisplayLabel
+{
+    private ActorRegistry actors;
+    private TickRecorder tickRecorder;
+    private GarbageCollectorMXBean[] collectors;
+
+    private char[] text = new char[160];
+    private int length;
+
+    // What things were at the last refresh, to work out rates
+    private long lastNanos = -1;
+    private int lastActCounter;
+    private long lastGcCount;
+    private long lastGcMillis;
+
+    /**
+     * @param actors        the World's Actors, to count
+     * @param tickRecorder  recent tick times (or null to leave out the p99)
+     */
+    public PerfHud (ActorRegistry actors, TickRecorder tickRecorder)
+    {
+        super(Color.BLACK, Color.GREEN, new Font("Courier New", true, false, 14), 22, "");
+        this.actors = actors;
+        this.tickRecorder = tickRecorder;
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors = beans.toArray(new GarbageCollectorMXBean[beans.size()]);
+        // Start from the collections so far, so the first refresh doesn't show every collection
+        // since the JVM started
+        lastGcCount = getGcCount();
+        lastGcMillis = getGcMillis();
+    }
+
+    /**
+     * Update the numbers.
+     *
+     * @param actCounter    the simulation's act counter, to work out ticks per second
+     */
+    public void refresh (int actCounter)
+    {
+        long now = System.nanoTime();
+        long gcCount = getGcCount();
+        long gcMillis = getGcMillis();
+
+        length = 0;
+        if (lastNanos != -1 && now > lastNanos){
+            // Ticks per second, to one decimal place
+            append((int)((actCounter - lastActCounter) * 10000000000L / (now - lastNanos)), 1);
+        } else {
+            append('-');
+        }
+        append(" tps");
+        if (tickRecorder != null){
+            append("  p99 ");
+            append((int)(tickRecorder.getRecentPercentile(99) / 10000), 2); // to 0.01 ms
+            append("ms");
+        }
+        append("  Bugs ");
+        append(actors.count(Bug.class), 0);
+        append("  Flowers ");
+        append(actors.count(Flower.class), 0);
+        append("  Eggs ");
+        append(actors.count(Egg.class), 0);
+        append("  Dead ");
+        append(actors.count(DeadBug.class), 0);
+        append("  Bars ");
+        append(actors.count(SuperStatBar.class), 0);
+        append("  GC +");
+        append((int)(gcCount - lastGcCount), 0);
+        append(" (");
+        append((int)(gcMillis - lastGcMillis), 0);
+        append("ms)");
+        update(text, length);
+
+        lastNanos = now;
+        lastActCounter = actCounter;
+        lastGcCount = gcCount;
+        lastGcMillis = gcMillis;
+    }
+
+    /**
+     * @return long     how many garbage collections there have been, by every collector
+     */
+    private long getGcCount ()
+    {
+        long count = 0;
+        for (int i = 0; i < collectors.length; i++){
+            count += Math.max(0, collectors[i].getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return long     how long (in ms) every collector has spent collecting
+     */
+    private long getGcMillis ()
+    {
+        long millis = 0;
+        for (int i = 0; i < collectors.length; i++){
+            millis += Math.max(0, collectors[i].getCollectionTime());
+        }
+        return millis;
+    }
+
+    private void append (char c)
+    {
+        if (length < text.length){
+            text[length++] = c;
+        }
+    }
+
+    private void append (String s)
+    {
+        for (int i = 0; i < s.length(); i++){
+            append(s.charAt(i));
+        }
+    }
+
+    /**
+     * Write a number, with a decimal point put in this many digits from the right (so 1234 with
+     * 2 decimals is written as 12.34).
+     */
+    private void append (int value, int decimals)
+    {
+        if (value < 0){
+            append('-');
+            value = -value;
+        }
+        // Count the digits (with at least one before the decimal point)
+        int digits = 1;
+        for (int v = value / 10; v > 0; v /= 10){
+            digits++;
+        }
+        digits = Math.max(digits, decimals + 1);
+        int power = 1;
+        for (int i = 1; i < digits; i++){
+            power *= 10;
+        }
+        for (int i = digits; i > 0; i--){
+            if (i == decimals){
+                append('.');
+            }
+            append((char)('0' + (value / power) % 10));
+            power /= 10;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Everything needed to start a simulation the same way every time: the seed for the random
+ * numbers, the size, how many Bugs, Flowers and Frogs to start with, and the simulation constants.
+ * Two runs of the same Scenario (with the same InputLog) are identical, tick for tick - so a
+ * performance change can be timed on exactly the same work before and after.
+ *
+ * <p>Scenarios are saved as properties files, for example:</p>
+ * <pre>
+ * seed=12345
+ * bugs=500
+ * flowers=160
+ * frogs=1
+ * ticks=20000
+ * bugDeathRate=3
+ * </pre>
+ * <p>Anything left out uses the default (the constants in BugSimulation). If there is no seed,
+ * a random one is picked - getSeed() will tell you what it was, so the run can be repeated.</p>
+ */
+public class Scenario
+{
+    private long seed;
+    private int width = 800;
+    private int height = 560;
+    private int bugs = 3;
+    private int flowers = 0;
+    private int frogs = 1;
+    private int ticks = 100000; // how long to run for, when there's no one to press stop
+
+    private int flowerSpawnRate = BugSimulation.FLOWER_SPAWN_RATE;
+    private int maxFlowers = BugSimulation.MAX_FLOWERS;
+    private int nibblesPerFlower = BugSimulation.NIBBLES_PER_FLOWER;
+    private int hpPerNibble = BugSimulation.HP_PER_NIBBLE;
+    private int bugMaxHp = BugSimulation.BUG_MAX_HP;
+    private int bugDeathRate = BugSimulation.BUG_DEATH_RATE;
+    private int oddsOfBig = BugSimulation.ODDS_OF_BIG;
+
+    /**
+     * Create the default Scenario (the same as the original DesertWorld) with a random seed.
+     */
+    public Scenario ()
+    {
+        seed = new Random().nextLong();
+    }
+
+    /**
+     * Load a Scenario from a properties file.
+     */
+    public static Scenario load (String filename) throws IOException
+    {
+        Properties p = new Properties();
+        Reader in = new FileReader(filename);
+        try {
+            p.load(in);
+        } finally {
+            in.close();
+        }
+        Scenario s = new Scenario();
+        if (p.getProperty("seed") != null){
+            s.seed = Long.parseLong(p.getProperty("seed").trim());
+        }
+        s.width = getInt(p, "width", s.width);
+        s.height = getInt(p, "height", s.height);
+        s.bugs = getInt(p, "bugs", s.bugs);
+        s.flowers = getInt(p, "flowers", s.flowers);
+        s.frogs = getInt(p, "frogs", s.frogs);
+        s.ticks = getInt(p, "ticks", s.ticks);
+        s.flowerSpawnRate = getInt(p, "flowerSpawnRate", s.flowerSpawnRate);
+        s.maxFlowers = getInt(p, "maxFlowers", s.maxFlowers);
+        s.nibblesPerFlower = getInt(p, "nibblesPerFlower", s.nibblesPerFlower);
+        s.hpPerNibble = getInt(p, "hpPerNibble", s.hpPerNibble);
+        s.bugMaxHp = getInt(p, "bugMaxHp", s.bugMaxHp);
+        s.bugDeathRate = getInt(p, "bugDeathRate", s.bugDeathRate);
+        s.oddsOfBig = getInt(p, "oddsOfBig", s.oddsOfBig);
+        return s;
+    }
+
+    /**
+     * Save this Scenario to a properties file (including the seed, even if it was picked at random).
+     */
+    public void save (String filename) throws IOException
+    {
+        Properties p = new Properties();
+        p.setProperty("seed", Long.toString(seed));
+        p.setProperty("width", Integer.toString(width));
+        p.setProperty("height", Integer.toString(height));
+        p.setProperty("bugs", Integer.toString(bugs));
+        p.setProperty("flowers", Integer.toString(flowers));
+        p.setProperty("frogs", Integer.toString(frogs));
+        p.setProperty("ticks", Integer.toString(ticks));
+        p.setProperty("flowerSpawnRate", Integer.toString(flowerSpawnRate));
+        p.setProperty("maxFlowers", Integer.toString(maxFlowers));
+        p.setProperty("nibblesPerFlower", Integer.toString(nibblesPerFlower));
+        p.setProperty("hpPerNibble", Integer.toString(hpPerNibble));
+        p.setProperty("bugMaxHp", Integer.toString(bugMaxHp));
+        p.setProperty("bugDeathRate", Integer.toString(bugDeathRate));
+        p.setProperty("oddsOfBig", Integer.toString(oddsOfBig));
+        Writer out = new FileWriter(filename);
+        try {
+            p.store(out, "Bug simulation scenario");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int getInt (Properties p, String key, int defaultValue)
+    {
+        String value = p.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Create a simulation for this Scenario, with the starting Bugs, Flowers and Frogs already
+     * added. The first Frog goes in the middle, and everything else at random (seeded) places.
+     */
+    public BugSimulation createSimulation (SimulationListener listener)
+    {
+        BugSimulation sim = new BugSimulation(this);
+        sim.setListener(listener);
+        for (int i = 0; i < bugs; i++){
+            sim.spawnBug();
+        }
+        for (int i = 0; i < flowers; i++){
+            sim.spawnFlower();
+        }
+        for (int i = 0; i < frogs; i++){
+            if (i == 0){
+                sim.addFrog(new SimFrog(sim), width / 2, height / 2); // place frog in the middle
+            } else {
+                sim.addFrog(new SimFrog(sim), sim.getRandomNumber(width), sim.getRandomNumber(height));
+            }
+        }
+        return sim;
+    }
+
+    public long getSeed ()
+    {
+        return seed;
+    }
+
+    public int getWidth ()
+    {
+        return width;
+    }
+
+    public int getHeight ()
+    {
+        return height;
+    }
+
+    public int getBugs ()
+    {
+        return bugs;
+    }
+
+    public int getTicks ()
+    {
+        return ticks;
+    }
+
+    public int getFlowerSpawnRate ()
+    {
+        return flowerSpawnRate;
+    }
+
+    public int getMaxFlowers ()
+    {
+        return maxFlowers;
+    }
+
+    public int getNibblesPerFlower ()
+    {
+        return nibblesPerFlower;
+    }
+
+    public int getHpPerNibble ()
+    {
+        return hpPerNibble;
+    }
+
+    public int getBugMaxHp ()
+    {
+        return bugMaxHp;
+    }
+
+    public int getBugDeathRate ()
+    {
+        return bugDeathRate;
+    }
+
+    public int getOddsOfBig ()
+    {
+        return oddsOfBig;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Random;
+
+/**
+ * Benchmarks for the parts of the simulation that don't need Greenfoot. These can be run on any
+ * machine, with or without a display:
+ *
+ * <p><code>javac BugSimulation.java BugPopulation.java Benchmark.java SimBenchmarks.java Sim*.java SpatialGrid.java</code><br>
+ * <code>java SimBenchmarks</code></p>
+ *
+ * <p>See WorldBenchmarks for the parts that draw things, which need to be run inside Greenfoot.</p>
+ */
+public class SimBenchmarks
+{
+    public static final int[] BUG_COUNTS = {100, 1000, 10000};
+    public static final int[] FLOWER_COUNTS = {20, 160};
+
+    public static void main (String[] args)
+    {
+        Benchmark.runAll(new Benchmark[] {
+            new TargetClosestFlower(),
+            new SimulationTick()
+        }, BUG_COUNTS, FLOWER_COUNTS);
+    }
+
+    /**
+     * Create a simulation with a set number of Bugs and Flowers, always in the same places.
+     */
+    static BugSimulation createSimulation (int bugs, int flowers, SimBug[] bugsOut)
+    {
+        BugSimulation sim = new BugSimulation(800, 560, new Random(42));
+        for (int i = 0; i < flowers; i++){
+            sim.spawnFlower();
+        }
+        for (int i = 0; i < bugs; i++){
+            SimBug b = new SimBug(sim);
+            sim.addBug(b, sim.getRandomNumber(800), sim.getRandomNumber(560));
+            if (bugsOut != null){
+                bugsOut[i] = b;
+            }
+        }
+        return sim;
+    }
+
+    /**
+     * SimBug.targetClosestFlower - one Bug (taking turns) finds its closest Flower.
+     */
+    private static class TargetClosestFlower extends Benchmark
+    {
+        private SimBug[] bugs;
+        private int next;
+
+        public TargetClosestFlower ()
+        {
+            super("SimBug.targetClosestFlower");
+        }
+
+        public void setup (int bugCount, int flowerCount)
+        {
+            bugs = new SimBug[bugCount];
+            createSimulation(bugCount, flowerCount, bugs);
+            next = 0;
+        }
+
+        public int run ()
+        {
+            SimBug b = bugs[next];
+            next = (next + 1) % bugs.length;
+            b.targetClosestFlower();
+            return b.getTargetFlower() == null ? 0 : 1;
+        }
+    }
+
+    /**
+     * BugSimulation.tick - one full tick of the rules. The population changes as it runs,
+     * so it is rebuilt (untimed) for every iteration, and an iteration is at most 600 ticks
+     * (10 seconds of simulated time).
+     */
+    private static class SimulationTick extends Benchmark
+    {
+        private BugSimulation sim;
+        private int bugCount, flowerCount;
+
+        public SimulationTick ()
+        {
+            super("BugSimulation.tick");
+        }
+
+        public void setup (int bugCount, int flowerCount)
+        {
+            this.bugCount = bugCount;
+            this.flowerCount = flowerCount;
+        }
+
+        public void setupIteration ()
+        {
+            sim = createSimulation(bugCount, flowerCount, null);
+        }
+
+        public long getMaxOpsPerIteration ()
+        {
+            return 600;
+        }
+
+        public int run ()
+        {
+            sim.tick();
+            return sim.getBugCount();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * A single Bug. A Bug loses energy every act, heads for (and nibbles on) the closest Flower it
+ * can see, lays an Egg once it is full, and dies when it runs out of energy.
+ *
+ * <p>A SimBug is only a handle - while it is in the simulation, everything about it is stored in
+ * its slot in the BugPopulation, which is also where the rules for Bugs are run. The Bug class is
+ * what shows one of these on the screen.</p>
+ */
+public class SimBug extends SimEntity
+{
+    private BugPopulation population;
+    private int slot = -1;
+
+    // Starting values, only used until this Bug is added and given a slot
+    private int startingEnergy;
+    private int maxEnergy;
+    private boolean big;
+    private double mySpeed = 2.0;
+
+    /**
+     * Primary constructor - creates a new Bug with full energy. This is what the Spawn button
+     * creates, and what the simulation starts off with.
+     */
+    public SimBug (BugSimulation sim)
+    {
+        super(sim);
+        maxEnergy = sim.getBugMaxHp();
+        startingEnergy = maxEnergy;
+    }
+
+    /**
+     * An additional constructor used specifically for Bugs that are to be
+     * spawned without full energy (hatched from eggs... hungry!)
+     */
+    public SimBug (BugSimulation sim, double percentHealth)
+    {
+        super(sim);
+        maxEnergy = sim.getBugMaxHp();
+        startingEnergy = (int) ((double)maxEnergy * percentHealth); // Assign a percentage of max health
+        if (sim.getRandomNumber(5) == 1){
+            big = true;
+            mySpeed += ((double)sim.getRandomNumber(sim.getOddsOfBig()))/10.0;
+        }
+    }
+
+    /**
+     * Called by the simulation when this Bug arrives - take a slot in the population, look for
+     * something to eat right away, and then take the least busy act number.
+     */
+    @Override
+    void addedToSimulation (int x, int y)
+    {
+        population = sim.getBugPopulation();
+        slot = population.add(this, startingEnergy, maxEnergy, mySpeed, big);
+        super.addedToSimulation(x, y);
+        population.targetClosestFlower(slot);
+        population.assignActNumber(slot);
+    }
+
+    /**
+     * Called by the BugPopulation when it restores this Bug from a Checkpoint - everything
+     * about it is already in the slot.
+     */
+    void restore (int slot, boolean big)
+    {
+        population = sim.getBugPopulation();
+        this.slot = slot;
+        this.big = big;
+        restoredToSimulation();
+    }
+
+    @Override
+    void removedFromSimulation ()
+    {
+        super.removedFromSimulation();
+        population.markRemoved(slot);
+    }
+
+    /**
+     * Bugs are acted on all together by the BugPopulation, so there is nothing to do here.
+     */
+    public void act ()
+    {
+    }
+
+    /**
+     * Called by the BugPopulation when it moves this Bug into a different slot.
+     */
+    void setSlot (int slot)
+    {
+        this.slot = slot;
+    }
+
+    /**
+     * @return int  this Bug's slot in the BugPopulation, or -1 if it isn't in one
+     */
+    int getSlot ()
+    {
+        return slot;
+    }
+
+    /**
+     * Target the closest Flower. (Not private so that SimBenchmarks can time it.)
+     */
+    void targetClosestFlower ()
+    {
+        population.targetClosestFlower(slot);
+    }
+
+    @Override
+    public void setLocation (int x, int y)
+    {
+        population.setLocation(slot, x, y);
+    }
+
+    @Override
+    public int getX ()
+    {
+        return population.getX(slot);
+    }
+
+    @Override
+    public int getY ()
+    {
+        return population.getY(slot);
+    }
+
+    public double getPreciseX ()
+    {
+        return population.getPreciseX(slot);
+    }
+
+    public double getPreciseY ()
+    {
+        return population.getPreciseY(slot);
+    }
+
+    public double getPreciseRotation ()
+    {
+        return population.getPreciseRotation(slot);
+    }
+
+    public int getEnergy ()
+    {
+        return population.getEnergy(slot);
+    }
+
+    public int getMaxEnergy ()
+    {
+        return slot < 0 ? maxEnergy : population.getMaxEnergy(slot);
+    }
+
+    public int getAge ()
+    {
+        return population.getAge(slot);
+    }
+
+    public int getActNumber ()
+    {
+        return population.getActNumber(slot);
+    }
+
+    /**
+     * @return boolean  true if this is one of the big (and faster) Bugs
+     */
+    public boolean isBig ()
+    {
+        return big;
+    }
+
+    public SimFlower getTargetFlower ()
+    {
+        return population.getTarget(slot);
+    }
+}
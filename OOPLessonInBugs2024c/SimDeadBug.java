@@ -0,0 +1,40 @@
+/**
+ * The rules for a Dead Bug ... Actually a skull. Starts off opaque and slowly turns transparent,
+ * and then eventually removes itself.
+ */
+public class SimDeadBug extends SimEntity
+{
+    private int transparency;
+
+    public SimDeadBug (BugSimulation sim)
+    {
+        super(sim);
+        transparency = 250;
+    }
+
+    /**
+     * Create a Dead Bug that has already started to fade (used by Checkpoint).
+     */
+    SimDeadBug (BugSimulation sim, int transparency)
+    {
+        super(sim);
+        this.transparency = transparency;
+    }
+
+    public void act ()
+    {
+        transparency--;
+        if (transparency < 5)
+        {
+            sim.removeDeadBug(this);
+        }
+    }
+
+    /**
+     * @return int  how see-through the skull should be drawn (0 - 255)
+     */
+    public int getTransparency ()
+    {
+        return transparency;
+    }
+}
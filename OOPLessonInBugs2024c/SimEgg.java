@@ -0,0 +1,87 @@
+/**
+ * The rules for an Egg. Takes a preset number of acts to hatch, then a set number of Bugs
+ * will be spawned with a delay in between. Once all Bugs have left the Egg, it removes itself.
+ */
+public class SimEgg extends SimEntity
+{
+    private int actsUntilHatch;
+    private int spawnCount;
+    private int spawnsLeft;
+    private int delayBetweenHatches;
+    private int delayBetweenHatchesCounter;
+    private boolean cracked;
+
+    public SimEgg (BugSimulation sim)
+    {
+        super(sim);
+        // Set acts until first bug is hatched
+        actsUntilHatch = 350;
+        // Generate a random number between 2 and 3 to determine how many
+        // bugs will spawn from this Egg
+        spawnCount = sim.getRandomNumber(2) + 2;
+        spawnsLeft = spawnCount;
+        // Set delay
+        delayBetweenHatches = 150;
+        // Starting value for timer
+        delayBetweenHatchesCounter = delayBetweenHatches;
+    }
+
+    /**
+     * Create an Egg part way through hatching (used by Checkpoint) - this one doesn't use up a
+     * random number, since how many Bugs it hatches is already known.
+     */
+    SimEgg (BugSimulation sim, int[] state)
+    {
+        super(sim);
+        actsUntilHatch = state[0];
+        spawnCount = state[1];
+        spawnsLeft = state[2];
+        delayBetweenHatches = state[3];
+        delayBetweenHatchesCounter = state[4];
+        cracked = state[5] != 0;
+    }
+
+    /**
+     * @return int[]    everything about this Egg's hatching, for a Checkpoint
+     */
+    int[] getState ()
+    {
+        return new int[]{actsUntilHatch, spawnCount, spawnsLeft, delayBetweenHatches, delayBetweenHatchesCounter, cracked ? 1 : 0};
+    }
+
+    public void act ()
+    {
+        // Wait for hatching to start if still counting down
+        if (actsUntilHatch > 0)
+        {
+            actsUntilHatch--;
+        }
+        // Once hatching starts, spawn Bugs with delay in between
+        else
+        {
+            delayBetweenHatchesCounter--;
+            if (delayBetweenHatchesCounter == 0)
+            {
+                SimBug bug = new SimBug(sim, 0.50);
+                sim.addBug(bug, getX(), getY());
+                sim.logEvent(EventLog.BUG_HATCHED, bug.getX(), bug.getY(), bug.isBig() ? 1 : 0);
+                delayBetweenHatchesCounter = delayBetweenHatches;
+                spawnsLeft--;
+                if (spawnsLeft <= spawnCount / 2 && !cracked){
+                    cracked = true;
+                    sim.eggCracked(this);
+                }
+            }
+            if (spawnsLeft == 0)
+                sim.removeEgg(this);
+        }
+    }
+
+    /**
+     * @return boolean  true once at least half of the Bugs have hatched
+     */
+    public boolean isCracked ()
+    {
+        return cracked;
+    }
+}
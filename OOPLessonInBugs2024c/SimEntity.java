@@ -0,0 +1,100 @@
+/**
+ * The base class for everything that lives inside a BugSimulation. This plays the same role
+ * as Actor does in Greenfoot - it has a location, knows which simulation it belongs to and
+ * gets an act() call once per tick - but it has no image and can run without a display.
+ *
+ * <p>Each entity can also hold a reference to the object that is drawing it (for example, the
+ * Greenfoot Bug that shows a SimBug on screen). The simulation never looks at this.</p>
+ */
+public abstract class SimEntity
+{
+    protected BugSimulation sim;
+    private int x;
+    private int y;
+    private boolean alive;
+    private Object view;
+
+    public SimEntity (BugSimulation sim)
+    {
+        this.sim = sim;
+    }
+
+    /**
+     * Do whatever this entity wants to do - called once per tick by the BugSimulation.
+     */
+    public abstract void act ();
+
+    /**
+     * Called by the BugSimulation when this entity is added.
+     */
+    void addedToSimulation (int x, int y)
+    {
+        alive = true;
+        setLocation(x, y);
+    }
+
+    /**
+     * Called instead of addedToSimulation() when this entity is being restored from a
+     * Checkpoint, and its location has been restored some other way.
+     */
+    void restoredToSimulation ()
+    {
+        alive = true;
+    }
+
+    /**
+     * Called by the BugSimulation when this entity is removed.
+     */
+    void removedFromSimulation ()
+    {
+        alive = false;
+    }
+
+    /**
+     * Set the location, keeping it inside the edges of the simulation the same way a bounded
+     * Greenfoot World would.
+     */
+    public void setLocation (int x, int y)
+    {
+        setLocationInternal(x, y);
+    }
+
+    void setLocationInternal (int x, int y)
+    {
+        this.x = sim.limitX(x);
+        this.y = sim.limitY(y);
+    }
+
+    public int getX ()
+    {
+        return x;
+    }
+
+    public int getY ()
+    {
+        return y;
+    }
+
+    /**
+     * @return boolean  true if this entity is currently part of the simulation
+     */
+    public boolean isAlive ()
+    {
+        return alive;
+    }
+
+    public BugSimulation getSimulation ()
+    {
+        return sim;
+    }
+
+    public Object getView ()
+    {
+        return view;
+    }
+
+    public void setView (Object view)
+    {
+        this.view = view;
+    }
+}
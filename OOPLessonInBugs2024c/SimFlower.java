@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+
+/**
+ * The rules for a Flower. A Flower simply waits to be nibbled on and grants energy to Bugs
+ * that nibble it until it has no nibbles left to give, at which point it removes itself.
+ *
+ * <p>A Flower also keeps a list of the Bugs that are heading for it (its subscribers). When the
+ * Flower is removed, only those Bugs are told to look for something else - no Bug has to keep
+ * checking whether its target is still there.</p>
+ */
+public class SimFlower extends SimEntity
+{
+    private int nibbles;
+    private int hpPerNibble;
+    private ArrayList<SimBug> subscribers = new ArrayList<SimBug>();
+
+    public SimFlower (BugSimulation sim)
+    {
+        super(sim);
+        nibbles = sim.getNibblesPerFlower();
+        hpPerNibble = sim.getHpPerNibble();
+    }
+
+    /**
+     * Create a Flower with some nibbles already taken (used by Checkpoint).
+     */
+    SimFlower (BugSimulation sim, int nibbles)
+    {
+        this(sim);
+        this.nibbles = nibbles;
+    }
+
+    /**
+     * Check if I have been completely eaten, and if so, remove me.
+     */
+    public void act ()
+    {
+        if (nibbles == 0)
+        {
+            sim.removeFlower(this);
+        }
+    }
+
+    /**
+     * Take a bite out of this Flower.
+     *
+     * @return int  The amount of energy that has been consumed
+     */
+    public int nibble ()
+    {
+        sim.flowerNibbled(this);
+        if (nibbles >= hpPerNibble) // If there is enough nibbles left..
+        {
+            nibbles -= hpPerNibble;
+            return hpPerNibble;
+        }
+        else // If nibbles left is just about empty, return last little bit
+        {
+            int tempNibbles = nibbles;
+            nibbles = 0;
+            return tempNibbles;
+        }
+    }
+
+    public int getNibbles ()
+    {
+        return nibbles;
+    }
+
+    /**
+     * Add a Bug to the list of Bugs heading for this Flower.
+     *
+     * @return int  where the Bug is in the list - keep this to unsubscribe it later
+     */
+    int subscribe (SimBug bug)
+    {
+        subscribers.add(bug);
+        return subscribers.size() - 1;
+    }
+
+    /**
+     * Take a Bug off the list of Bugs heading for this Flower. The last Bug in the list is moved
+     * into its place, so nothing else has to shift down.
+     *
+     * @param index         where the Bug is in the list
+     * @return SimBug       the Bug that was moved into that place (its index has changed), or null
+     */
+    SimBug unsubscribe (int index)
+    {
+        SimBug last = subscribers.remove(subscribers.size() - 1);
+        if (index < subscribers.size()){
+            subscribers.set(index, last);
+            return last;
+        }
+        return null;
+    }
+
+    /**
+     * Put a Bug back into the list at the place it had when it was saved (see Checkpoint). Once
+     * every Bug heading for this Flower has been put back, the list is the same as it was.
+     */
+    void restoreSubscriber (SimBug bug, int index)
+    {
+        while (subscribers.size() <= index){
+            subscribers.add(null);
+        }
+        subscribers.set(index, bug);
+    }
+
+    /**
+     * @return ArrayList    the Bugs heading for this Flower (don't change it while looping over it)
+     */
+    ArrayList<SimBug> getSubscribers ()
+    {
+        return subscribers;
+    }
+}
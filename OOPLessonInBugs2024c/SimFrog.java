@@ -0,0 +1,83 @@
+/**
+ * The rules for a Frog. Hunts down the closest Bug it can see and eats it.
+ */
+public class SimFrog extends SimMover
+{
+    // How far away a Frog is able to see a Bug
+    private static final int BUG_SEARCH_RANGE = 300;
+
+    private SimBug targetBug;
+    private double mySpeed = 2.5;
+    private boolean facingRight = true;
+
+    public SimFrog (BugSimulation sim)
+    {
+        super(sim);
+    }
+
+    public void act ()
+    {
+        if (targetBug == null || !targetBug.isAlive()) {
+            targetClosestBug();
+        }
+
+        if (targetBug != null) {
+            moveTowardBug();
+        }
+    }
+
+    /** Works like SimBug.targetClosestFlower() but for Bugs - uses the bug grid */
+    private void targetClosestBug ()
+    {
+        SimBug closest = sim.getBugGrid().getNearest(getX(), getY(), BUG_SEARCH_RANGE);
+        if (closest != null) {
+            targetBug = closest;
+        }
+    }
+
+    private void moveTowardBug ()
+    {
+        double dx = targetBug.getX() - getX();
+        double dy = targetBug.getY() - getY();
+        double distance = Math.sqrt(dx*dx + dy*dy);
+
+        if (distance < 20) { // eat bug
+            sim.removeBug(targetBug, true);
+            targetBug = null;
+        } else {
+            double moveX = (dx / distance) * mySpeed;
+            double moveY = (dy / distance) * mySpeed;
+
+            // Remember which way I'm facing, so the view can flip its image
+            if (moveX > 0) {
+                facingRight = true;
+            } else if (moveX < 0) {
+                facingRight = false;
+            }
+
+            setLocation(getX() + (int)moveX, getY() + (int)moveY);
+        }
+    }
+
+    /**
+     * @return SimBug   the Bug this Frog is chasing (which may have died since), or null
+     */
+    SimBug getTargetBug ()
+    {
+        return targetBug;
+    }
+
+    /**
+     * Restore what this Frog was doing (used by Checkpoint).
+     */
+    void restore (SimBug targetBug, boolean facingRight)
+    {
+        this.targetBug = targetBug;
+        this.facingRight = facingRight;
+    }
+
+    public boolean isFacingRight ()
+    {
+        return facingRight;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * A SimEntity that keeps a precise location and rotation, the same way SuperSmoothMover does,
+ * so that a headless run puts things in the same places that the Greenfoot version would.
+ */
+public abstract class SimMover extends SimEntity
+{
+    private double exactX;
+    private double exactY;
+    private double preciseRotation;
+
+    public SimMover (BugSimulation sim)
+    {
+        super(sim);
+    }
+
+    /**
+     * Set the rotation to a precise new angle.
+     */
+    public void setRotation (double preciseRotation)
+    {
+        this.preciseRotation = preciseRotation;
+    }
+
+    /**
+     * Set the location using exact coordinates. The exact values are kept as they are,
+     * while the whole number location is rounded and kept inside the edges.
+     */
+    public void setLocation (double x, double y)
+    {
+        exactX = x;
+        exactY = y;
+        setLocationInternal((int)(x + 0.5), (int)(y + 0.5));
+    }
+
+    @Override
+    public void setLocation (int x, int y)
+    {
+        exactX = x;
+        exactY = y;
+        setLocationInternal(x, y);
+    }
+
+    public double getPreciseX ()
+    {
+        return exactX;
+    }
+
+    public double getPreciseY ()
+    {
+        return exactY;
+    }
+
+    public double getPreciseRotation ()
+    {
+        return preciseRotation;
+    }
+}
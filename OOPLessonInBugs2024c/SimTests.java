@@ -0,0 +1,895 @@
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+/**
+ * Unit tests for the parts of the simulation that don't need Greenfoot. These can be run on any
+ * machine, with or without a display:
+ *
+ * <p><code>javac UnitTest.java SimTests.java BugSimulation.java BugPopulation.java Sim*.java SpatialGrid.java EventLog.java TickProfiler.java ZSorter.java SimView.java TickRecorder.java TaskScheduler.java Checkpoint.java InputLog.java</code><br>
+ * <code>java SimTests</code></p>
+ *
+ * <p>See WorldTests for the parts that need Greenfoot.</p>
+ */
+public class SimTests
+{
+    public static void main (String[] args)
+    {
+        int failed = UnitTest.runAll(new UnitTest[] {
+            new GridNearest(),
+            new GridAddRemoveMove(),
+            new GridInRange(),
+            new GridKNearest(),
+            new GridManyMoves(),
+            new PopulationSlots(),
+            new ZSorterSort(),
+            new ZSorterRepair(),
+            new RecorderPercentiles(),
+            new RecorderRecentWindow(),
+            new SchedulerPeriods(),
+            new SchedulerDeadlines(),
+            new SchedulerCancel(),
+            new SchedulerReschedule(),
+            new CheckpointRoundTrip(),
+            new RecordAfterRestore(),
+            new EventLogFormat()
+        });
+        if (failed > 0){
+            System.exit(1);
+        }
+    }
+
+    /**
+     * A point, for putting in a SpatialGrid.
+     */
+    private static class Point
+    {
+        int x, y;
+
+        Point (int x, int y)
+        {
+            this.x = x;
+            this.y = y;
+        }
+
+        long distSq (int px, int py)
+        {
+            long dx = x - px;
+            long dy = y - py;
+            return dx * dx + dy * dy;
+        }
+    }
+
+    /**
+     * Fill a grid with random points, keeping a list of them to check against.
+     */
+    static ArrayList<Point> fillGrid (SpatialGrid<Point> grid, int count, Random random)
+    {
+        ArrayList<Point> points = new ArrayList<Point>();
+        for (int i = 0; i < count; i++){
+            Point p = new Point(random.nextInt(800), random.nextInt(560));
+            points.add(p);
+            grid.add(p, p.x, p.y);
+        }
+        return points;
+    }
+
+    /**
+     * The closest distance (squared) from a point to anything in the list, the slow way.
+     */
+    static long closestDistSq (ArrayList<Point> points, int x, int y, int maxRange)
+    {
+        long best = Long.MAX_VALUE;
+        for (Point p : points){
+            long d = p.distSq(x, y);
+            if (d <= (long)maxRange * maxRange && d < best){
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * SpatialGrid.getNearest finds something exactly as close as the closest point (checked
+     * against every point), and nothing when nothing is in range.
+     */
+    private static class GridNearest extends UnitTest
+    {
+        public GridNearest ()
+        {
+            super("SpatialGrid.getNearest matches a search of every point");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(1);
+            for (int count : new int[]{0, 1, 5, 200}){
+                SpatialGrid<Point> grid = new SpatialGrid<Point>(800, 560, 50);
+                ArrayList<Point> points = fillGrid(grid, count, random);
+                for (int q = 0; q < 500; q++){
+                    int x = random.nextInt(800);
+                    int y = random.nextInt(560);
+                    int range = 10 + random.nextInt(400);
+                    Point found = grid.getNearest(x, y, range);
+                    long expected = closestDistSq(points, x, y, range);
+                    if (expected == Long.MAX_VALUE){
+                        check(found == null, "found something out of range at " + x + "," + y);
+                    } else {
+                        check(found != null, "found nothing at " + x + "," + y);
+                        checkEquals(expected, found.distSq(x, y), "distance from " + x + "," + y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Items can be removed and moved (within a cell and across cells), and the grid only finds
+     * them where they are now.
+     */
+    private static class GridAddRemoveMove extends UnitTest
+    {
+        public GridAddRemoveMove ()
+        {
+            super("SpatialGrid add, remove and move");
+        }
+
+        public void run ()
+        {
+            SpatialGrid<Point> grid = new SpatialGrid<Point>(800, 560, 50);
+            Point a = new Point(10, 10);
+            Point b = new Point(400, 300);
+            grid.add(a, a.x, a.y);
+            grid.add(b, b.x, b.y);
+            checkEquals(2, grid.size(), "size");
+
+            checkSame(a, grid.getNearest(0, 0, 100), "nearest to the corner");
+            check(grid.move(a, 10, 10, 20, 20), "move within a cell");
+            checkSame(a, grid.getNearest(20, 20, 1), "after moving within a cell");
+            check(grid.move(a, 20, 20, 700, 500), "move to another cell");
+            check(grid.getNearest(20, 20, 100) == null, "still found at the old position");
+            checkSame(a, grid.getNearest(700, 500, 1), "after moving to another cell");
+
+            check(!grid.remove(a, 20, 20), "removed from the wrong position");
+            check(grid.remove(a, 700, 500), "remove");
+            checkEquals(1, grid.size(), "size after remove");
+            checkSame(b, grid.getNearest(700, 500, 1000), "nearest after remove");
+
+            grid.clear();
+            checkEquals(0, grid.size(), "size after clear");
+            check(grid.getNearest(400, 300, 1000) == null, "found something after clear");
+        }
+    }
+
+    /**
+     * SpatialGrid.getInRange finds exactly the points within range.
+     */
+    private static class GridInRange extends UnitTest
+    {
+        public GridInRange ()
+        {
+            super("SpatialGrid.getInRange matches a search of every point");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(2);
+            SpatialGrid<Point> grid = new SpatialGrid<Point>(800, 560, 50);
+            ArrayList<Point> points = fillGrid(grid, 300, random);
+            ArrayList<Point> results = new ArrayList<Point>();
+            for (int q = 0; q < 200; q++){
+                int x = random.nextInt(800);
+                int y = random.nextInt(560);
+                int range = random.nextInt(300);
+                grid.getInRange(x, y, range, results);
+                int expected = 0;
+                for (Point p : points){
+                    if (p.distSq(x, y) <= (long)range * range){
+                        expected++;
+                        check(results.contains(p), "missed a point in range of " + x + "," + y);
+                    }
+                }
+                checkEquals(expected, results.size(), "points in range of " + x + "," + y);
+            }
+        }
+    }
+
+    /**
+     * SpatialGrid.getNearest (the k version) finds the k closest points, closest first, with the
+     * same distances as sorting every point by distance.
+     */
+    private static class GridKNearest extends UnitTest
+    {
+        public GridKNearest ()
+        {
+            super("SpatialGrid.getNearest (k) matches sorting every point");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(3);
+            SpatialGrid<Point> grid = new SpatialGrid<Point>(800, 560, 50);
+            ArrayList<Point> points = fillGrid(grid, 300, random);
+            Point[] results = new Point[10];
+            for (int q = 0; q < 300; q++){
+                int x = random.nextInt(800);
+                int y = random.nextInt(560);
+                int range = random.nextInt(400);
+                int k = 1 + random.nextInt(results.length);
+                int found = grid.getNearest(x, y, range, results, k);
+
+                long[] all = new long[points.size()];
+                int inRange = 0;
+                for (Point p : points){
+                    long distSq = p.distSq(x, y);
+                    if (distSq <= (long)range * range){
+                        all[inRange++] = distSq;
+                    }
+                }
+                Arrays.sort(all, 0, inRange);
+                checkEquals(Math.min(k, inRange), found, "how many found near " + x + "," + y);
+                for (int i = 0; i < found; i++){
+                    checkEquals(all[i], results[i].distSq(x, y), "distance of result " + i + " near " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * After lots of moves (like Bugs walking around), the grid still finds the closest point
+     * where the points are now.
+     */
+    private static class GridManyMoves extends UnitTest
+    {
+        public GridManyMoves ()
+        {
+            super("SpatialGrid.getNearest after moving every point");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(4);
+            SpatialGrid<Point> grid = new SpatialGrid<Point>(800, 560, 50);
+            ArrayList<Point> points = fillGrid(grid, 200, random);
+            for (int step = 0; step < 50; step++){
+                for (Point p : points){
+                    int newX = Math.max(0, Math.min(799, p.x + random.nextInt(41) - 20));
+                    int newY = Math.max(0, Math.min(559, p.y + random.nextInt(41) - 20));
+                    check(grid.move(p, p.x, p.y, newX, newY), "move");
+                    p.x = newX;
+                    p.y = newY;
+                }
+                checkEquals(points.size(), grid.size(), "size");
+                for (int q = 0; q < 20; q++){
+                    int x = random.nextInt(800);
+                    int y = random.nextInt(560);
+                    Point found = grid.getNearest(x, y, 1000);
+                    checkEquals(closestDistSq(points, x, y, 1000), found.distSq(x, y), "distance from " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Make a simulation with Bugs, Flowers and a Frog, so Bugs are born, eaten and starve.
+     */
+    static BugSimulation createSimulation (long seed, int bugs, int flowers)
+    {
+        BugSimulation sim = new BugSimulation(800, 560, new Random(seed));
+        for (int i = 0; i < bugs; i++){
+            sim.spawnBug();
+        }
+        for (int i = 0; i < flowers; i++){
+            sim.spawnFlower();
+        }
+        sim.addFrog(new SimFrog(sim), 400, 280);
+        return sim;
+    }
+
+    /**
+     * As Bugs come and go, every Bug in the BugPopulation knows its own slot, is still alive,
+     * is in the bug grid where the population says it is, and is counted in one act number.
+     */
+    private static class PopulationSlots extends UnitTest
+    {
+        public PopulationSlots ()
+        {
+            super("BugPopulation slots stay consistent as Bugs come and go");
+        }
+
+        public void run ()
+        {
+            BugSimulation sim = createSimulation(5, 300, 60);
+            BugPopulation bugs = sim.getBugPopulation();
+            SpatialGrid<SimBug> grid = sim.getBugGrid();
+            for (int tick = 0; tick < 800; tick++){
+                sim.tick();
+                checkEquals(sim.getBugCount(), bugs.size(), "Bugs in the population");
+                checkEquals(bugs.size(), grid.size(), "Bugs in the grid");
+                int counted = 0;
+                for (int n = 0; n < 60; n++){
+                    counted += bugs.getBucketCount(n);
+                }
+                checkEquals(bugs.size(), counted, "Bugs with an act number");
+                for (int i = 0; i < bugs.size(); i++){
+                    SimBug bug = bugs.getHandle(i);
+                    checkEquals(i, bug.getSlot(), "slot of the Bug in slot " + i);
+                    check(bug.isAlive(), "dead Bug left in slot " + i);
+                    check(bugs.getTarget(i) == null || bugs.getTarget(i).isAlive(), "Bug in slot " + i + " is targeting a removed Flower");
+                    SimBug found = grid.getNearest(bugs.getX(i), bugs.getY(i), 0);
+                    check(found != null, "Bug in slot " + i + " isn't in the grid where it is");
+                }
+            }
+        }
+    }
+
+    /**
+     * A SimView that isn't drawn, for testing ZSorter. Like the real views, it tells its model
+     * which view is showing it.
+     */
+    private static class TestView implements SimView
+    {
+        private SimEntity model;
+        private int zIndex = -1;
+
+        TestView (SimEntity model)
+        {
+            setModel(model);
+        }
+
+        public SimEntity getModel ()
+        {
+            return model;
+        }
+
+        public void setModel (SimEntity model)
+        {
+            this.model = model;
+            model.setView(this);
+        }
+
+        public int getZIndex ()
+        {
+            return zIndex;
+        }
+
+        public void setZIndex (int index)
+        {
+            zIndex = index;
+        }
+    }
+
+    /**
+     * Add views of Flowers at random heights to a ZSorter.
+     */
+    static ArrayList<TestView> fillSorter (ZSorter sorter, BugSimulation sim, int count, Random random)
+    {
+        ArrayList<TestView> views = new ArrayList<TestView>();
+        for (int i = 0; i < count; i++){
+            SimFlower flower = new SimFlower(sim);
+            flower.setLocation(random.nextInt(800), random.nextInt(560));
+            TestView view = new TestView(flower);
+            views.add(view);
+            sorter.add(view);
+        }
+        return views;
+    }
+
+    /**
+     * Check that the views (in the order they were added) show their models from the top of the
+     * World to the bottom, and that every model is still being shown exactly once.
+     */
+    static void checkInOrder (ArrayList<TestView> views, int modelCount)
+    {
+        int lastY = Integer.MIN_VALUE;
+        IdentityHashMap<SimEntity, Boolean> seen = new IdentityHashMap<SimEntity, Boolean>();
+        for (TestView view : views){
+            if (view.getZIndex() < 0){
+                continue; // removed
+            }
+            SimEntity model = view.getModel();
+            UnitTest.check(model.getY() >= lastY, "y " + model.getY() + " painted after y " + lastY);
+            UnitTest.check(seen.put(model, Boolean.TRUE) == null, "a model is shown by two views");
+            UnitTest.checkSame(view, model.getView(), "the view of a model");
+            lastY = model.getY();
+        }
+        UnitTest.checkEquals(modelCount, seen.size(), "models shown");
+    }
+
+    /**
+     * ZSorter.sort puts everything in order in one go.
+     */
+    private static class ZSorterSort extends UnitTest
+    {
+        public ZSorterSort ()
+        {
+            super("ZSorter.sort puts every view in order");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(6);
+            BugSimulation sim = new BugSimulation(800, 560, random);
+            ZSorter sorter = new ZSorter(560);
+            ArrayList<TestView> views = fillSorter(sorter, sim, 500, random);
+            sorter.sort();
+            checkInOrder(views, 500);
+            checkEquals(0, sorter.getPendingCount(), "views waiting after a sort");
+        }
+    }
+
+    /**
+     * ZSorter.repair, a little at a time, puts everything back in order after views are added,
+     * moved and removed.
+     */
+    private static class ZSorterRepair extends UnitTest
+    {
+        public ZSorterRepair ()
+        {
+            super("ZSorter.repair fixes the order of moved, added and removed views");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(7);
+            BugSimulation sim = new BugSimulation(800, 560, random);
+            ZSorter sorter = new ZSorter(560);
+            ArrayList<TestView> views = fillSorter(sorter, sim, 300, random);
+            int models = views.size();
+            for (int round = 0; round < 40; round++){
+                // Move some models (the way Bugs walk), add some views and remove some
+                for (int i = 0; i < 30; i++){
+                    TestView view = views.get(random.nextInt(views.size()));
+                    if (view.getZIndex() < 0){
+                        continue;
+                    }
+                    SimEntity model = view.getModel();
+                    model.setLocation(model.getX(), model.getY() + random.nextInt(41) - 20);
+                    sorter.markMoved((SimView)model.getView());
+                }
+                views.addAll(fillSorter(sorter, sim, 5, random));
+                models += 5;
+                for (int i = 0; i < 3; i++){
+                    TestView view = views.get(random.nextInt(views.size()));
+                    if (view.getZIndex() >= 0){
+                        sorter.remove(view);
+                        models--;
+                    }
+                }
+
+                // Repair with a small budget until nothing is left to do
+                int calls = 0;
+                while (sorter.getPendingCount() > 0){
+                    sorter.repair(50);
+                    check(++calls < 10000, "repair never finished");
+                }
+                checkInOrder(views, models);
+            }
+        }
+    }
+
+    /**
+     * The percentile of some times, the slow way (sorting them).
+     */
+    static long sortedPercentile (long[] times, int count, double percentile)
+    {
+        long[] sorted = Arrays.copyOf(times, count);
+        Arrays.sort(sorted);
+        int wanted = (int)Math.ceil(count * percentile / 100.0);
+        return sorted[Math.max(1, wanted) - 1];
+    }
+
+    /**
+     * TickRecorder percentiles are never below the real ones (from sorting), and no more than
+     * one bucket (about 3%) above - and never above the longest tick.
+     */
+    private static class RecorderPercentiles extends UnitTest
+    {
+        public RecorderPercentiles ()
+        {
+            super("TickRecorder percentiles are within a bucket of sorting");
+        }
+
+        public void run ()
+        {
+            // One tick on its own - every percentile is exactly that tick
+            for (long nanos : new long[]{0, 1, 31, 32, 33, 1000, 16000000, 123456789}){
+                TickRecorder one = new TickRecorder(10);
+                one.record(0, nanos, 0);
+                checkEquals(nanos, one.getPercentile(50), "p50 of one tick");
+                checkEquals(nanos, one.getPercentile(100), "p100 of one tick");
+                checkEquals(nanos, one.getRecentPercentile(99), "recent p99 of one tick");
+            }
+
+            Random random = new Random(8);
+            TickRecorder recorder = new TickRecorder(5000);
+            long[] times = new long[5000];
+            for (int i = 0; i < times.length; i++){
+                // Mostly around 5ms, with a slow tail
+                times[i] = random.nextInt(10) == 0 ? 5000000 + random.nextInt(50000000) : 4000000 + random.nextInt(2000000);
+                recorder.record(i, times[i], 0);
+            }
+            for (double p : new double[]{1, 50, 90, 99, 99.9, 100}){
+                long expected = sortedPercentile(times, times.length, p);
+                long all = recorder.getPercentile(p);
+                long recent = recorder.getRecentPercentile(p);
+                check(all >= expected && all <= expected + expected / 32, "p" + p + " was " + all + ", sorting gives " + expected);
+                checkEquals(all, recent, "recent p" + p + " (every tick is recent)");
+                check(all <= recorder.getMax(), "p" + p + " is longer than the longest tick");
+            }
+            checkEquals(times.length, recorder.getCount(), "ticks recorded");
+        }
+    }
+
+    /**
+     * Once the recent ticks are full, the oldest ones stop counting towards the recent
+     * percentiles (but still count towards the all-time ones).
+     */
+    private static class RecorderRecentWindow extends UnitTest
+    {
+        public RecorderRecentWindow ()
+        {
+            super("TickRecorder recent percentiles forget old ticks");
+        }
+
+        public void run ()
+        {
+            TickRecorder recorder = new TickRecorder(100);
+            for (int i = 0; i < 100; i++){
+                recorder.record(i, 50000000, 0); // 50ms
+            }
+            for (int i = 0; i < 100; i++){
+                recorder.record(100 + i, 1000000, 0); // 1ms
+            }
+            long recent = recorder.getRecentPercentile(100);
+            check(recent >= 1000000 && recent <= 1000000 + 1000000 / 32, "recent p100 was " + recent);
+            checkEquals(50000000, recorder.getPercentile(100), "all-time p100");
+            check(recorder.getPercentile(50) <= 1000000 + 1000000 / 32, "all-time p50");
+
+            recorder.reset();
+            checkEquals(0, recorder.getRecentPercentile(99), "recent p99 after reset");
+            checkEquals(0, recorder.getCount(), "ticks after reset");
+        }
+    }
+
+    /**
+     * With plenty of time, every Task runs exactly once every period, and Tasks with the same
+     * period are spread out evenly instead of all running on the same tick.
+     */
+    private static class SchedulerPeriods extends UnitTest
+    {
+        public SchedulerPeriods ()
+        {
+            super("TaskScheduler runs Tasks every period, spread out");
+        }
+
+        public void run ()
+        {
+            TaskScheduler scheduler = new TaskScheduler();
+            final int[] runs = new int[600];
+            for (int i = 0; i < runs.length; i++){
+                final int n = i;
+                scheduler.schedule(() -> runs[n]++, 6, 2);
+            }
+            for (int tick = 0; tick < 60; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+                checkEquals(100, scheduler.getRanLastTick(), "Tasks run on tick " + tick);
+                checkEquals(0, scheduler.getDeferredLastTick(), "Tasks put off on tick " + tick);
+            }
+            for (int i = 0; i < runs.length; i++){
+                checkEquals(10, runs[i], "runs of Task " + i);
+            }
+        }
+    }
+
+    /**
+     * With no time at all, Tasks are put off - but never past their tolerance.
+     */
+    private static class SchedulerDeadlines extends UnitTest
+    {
+        public SchedulerDeadlines ()
+        {
+            super("TaskScheduler never runs a Task later than its tolerance");
+        }
+
+        public void run ()
+        {
+            final TaskScheduler scheduler = new TaskScheduler();
+            final int[] tick = new int[1];
+            final int[] lastRun = new int[200];
+            final int period = 6;
+            final int tolerance = 3;
+            for (int i = 0; i < lastRun.length; i++){
+                final int n = i;
+                scheduler.schedule(() -> {
+                    check(tick[0] - lastRun[n] <= period + tolerance, "Task " + n + " ran " + (tick[0] - lastRun[n]) + " ticks after the last time");
+                    lastRun[n] = tick[0];
+                }, period, tolerance);
+            }
+            boolean anyDeferred = false;
+            for (tick[0] = 1; tick[0] <= 120; tick[0]++){
+                scheduler.runTick(0); // already out of time
+                anyDeferred |= scheduler.getDeferredLastTick() > 0;
+            }
+            check(anyDeferred, "nothing was put off");
+            for (int i = 0; i < lastRun.length; i++){
+                check(120 - lastRun[i] <= period + tolerance, "Task " + i + " stopped running");
+            }
+        }
+    }
+
+    /**
+     * A cancelled Task never runs again, even if it was already due, and a Task can cancel
+     * itself while it is running.
+     */
+    private static class SchedulerCancel extends UnitTest
+    {
+        public SchedulerCancel ()
+        {
+            super("TaskScheduler cancel");
+        }
+
+        public void run ()
+        {
+            TaskScheduler scheduler = new TaskScheduler();
+            final int[] runs = new int[3];
+            TaskScheduler.Task first = scheduler.schedule(() -> runs[0]++, 1, 0);
+            TaskScheduler.Task second = scheduler.schedule(() -> runs[1]++, 3, 0);
+            final TaskScheduler.Task[] third = new TaskScheduler.Task[1];
+            third[0] = scheduler.schedule(() -> {
+                runs[2]++;
+                third[0].cancel();
+            }, 1, 0);
+
+            scheduler.runTick(Long.MAX_VALUE);
+            checkEquals(1, runs[0], "runs of the first Task");
+            checkEquals(1, runs[2], "runs of the Task that cancels itself");
+            first.cancel();
+            second.cancel();
+            for (int tick = 0; tick < 10; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+            }
+            checkEquals(1, runs[0], "runs of the first Task after cancelling");
+            checkEquals(0, runs[1], "runs of the second Task, cancelled before it was due");
+            checkEquals(1, runs[2], "runs of the Task that cancelled itself");
+            checkEquals(0, scheduler.size(), "Tasks left");
+        }
+    }
+
+    /**
+     * A rescheduled Task runs again at its old period, is never queued twice (even if it is
+     * rescheduled before the cancel has been cleared out), and moving it to another scheduler
+     * stops the first one from running it.
+     */
+    private static class SchedulerReschedule extends UnitTest
+    {
+        public SchedulerReschedule ()
+        {
+            super("TaskScheduler reschedule");
+        }
+
+        public void run ()
+        {
+            TaskScheduler scheduler = new TaskScheduler();
+            final int[] runs = new int[1];
+            TaskScheduler.Task task = scheduler.schedule(() -> runs[0]++, 2, 0);
+            for (int tick = 0; tick < 10; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+            }
+            checkEquals(5, runs[0], "runs before cancelling");
+
+            task.cancel();
+            check(task.isCancelled(), "cancelled");
+            scheduler.reschedule(task); // still waiting, so it keeps its place
+            check(!task.isCancelled(), "rescheduled");
+            checkEquals(1, scheduler.size(), "Tasks after rescheduling straight away");
+            for (int tick = 0; tick < 10; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+            }
+            checkEquals(10, runs[0], "runs after rescheduling straight away");
+
+            task.cancel();
+            for (int tick = 0; tick < 10; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+            }
+            checkEquals(10, runs[0], "runs while cancelled");
+            checkEquals(0, scheduler.size(), "Tasks while cancelled");
+            scheduler.reschedule(task);
+            scheduler.reschedule(task);
+            checkEquals(1, scheduler.size(), "Tasks after rescheduling twice");
+            for (int tick = 0; tick < 10; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+            }
+            checkEquals(15, runs[0], "runs after rescheduling");
+
+            TaskScheduler other = new TaskScheduler();
+            task.cancel();
+            other.reschedule(task);
+            for (int tick = 0; tick < 10; tick++){
+                scheduler.runTick(Long.MAX_VALUE);
+                other.runTick(Long.MAX_VALUE);
+            }
+            checkEquals(20, runs[0], "runs after moving to another scheduler");
+            checkEquals(0, scheduler.size(), "Tasks left in the first scheduler");
+        }
+    }
+
+    /**
+     * A hash of everything that can be seen about a simulation - every Bug's exact position,
+     * rotation, energy, age, act number and target, every Flower, the numbers of Eggs and Dead
+     * Bugs, and the stats. Two simulations that are doing exactly the same thing have the same
+     * hash.
+     */
+    static long stateHash (BugSimulation sim)
+    {
+        long h = sim.getActCounter();
+        BugPopulation bugs = sim.getBugPopulation();
+        for (int i = 0; i < bugs.size(); i++){
+            h = h * 31 + Double.hashCode(bugs.getPreciseX(i));
+            h = h * 31 + Double.hashCode(bugs.getPreciseY(i));
+            h = h * 31 + Double.hashCode(bugs.getPreciseRotation(i));
+            h = h * 31 + bugs.getEnergy(i);
+            h = h * 31 + bugs.getAge(i);
+            h = h * 31 + bugs.getActNumber(i);
+            SimFlower target = bugs.getTarget(i);
+            h = h * 31 + (target == null ? -1 : target.getX() * 1000 + target.getY());
+        }
+        for (SimFlower flower : sim.getFlowers()){
+            h = h * 31 + flower.getX() * 1000 + flower.getY();
+            h = h * 31 + flower.getNibbles();
+        }
+        h = h * 31 + sim.getEggs().size();
+        h = h * 31 + sim.getDeadBugs().size();
+        h = h * 31 + sim.getDeaths();
+        h = h * 31 + sim.getAverageAge();
+        h = h * 31 + sim.getMaxAliveAtOnce();
+        return h;
+    }
+
+    /**
+     * A simulation loaded from a Checkpoint carries on exactly the same way as the one that was
+     * saved, tick for tick.
+     */
+    private static class CheckpointRoundTrip extends UnitTest
+    {
+        public CheckpointRoundTrip ()
+        {
+            super("Checkpoint save and load carries on identically");
+        }
+
+        public void run () throws Exception
+        {
+            File file = File.createTempFile("checkpoint", ".bin");
+            try {
+                for (long seed : new long[]{1, 5}){
+                    BugSimulation original = createSimulation(seed, 600, 100);
+                    for (int tick = 0; tick < 1500; tick++){
+                        original.tick();
+                    }
+                    Checkpoint.save(original, file.getPath());
+                    BugSimulation restored = Checkpoint.load(file.getPath(), null);
+                    checkEquals(stateHash(original), stateHash(restored), "state right after loading (seed " + seed + ")");
+                    for (int tick = 0; tick < 2000; tick++){
+                        if (tick % 500 == 250){
+                            original.bombFlowers();
+                            restored.bombFlowers();
+                        }
+                        original.tick();
+                        restored.tick();
+                        checkEquals(stateHash(original), stateHash(restored), "state " + (tick + 1) + " ticks after loading (seed " + seed + ")");
+                    }
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Recording inputs, loading a Checkpoint part way through and then recording some more gives
+     * an InputLog that plays back to exactly where the recording finished - the inputs recorded
+     * after the Checkpoint, before it was loaded, are thrown away.
+     */
+    private static class RecordAfterRestore extends UnitTest
+    {
+        public RecordAfterRestore ()
+        {
+            super("InputLog recorded across a Checkpoint restore plays back the same");
+        }
+
+        public void run () throws Exception
+        {
+            File checkpoint = File.createTempFile("checkpoint", ".bin");
+            File inputs = File.createTempFile("inputs", ".txt");
+            try {
+                InputLog log = new InputLog();
+                BugSimulation sim = createSimulation(3, 200, 60);
+                for (int tick = 0; tick < 1000; tick++){
+                    if (tick == 600){
+                        Checkpoint.save(sim, checkpoint.getPath());
+                    }
+                    record(log, sim, tick);
+                    sim.tick();
+                }
+                sim = Checkpoint.load(checkpoint.getPath(), null);
+                log.truncateAfter(sim.getActCounter());
+                for (int tick = 0; tick < 800; tick++){
+                    record(log, sim, tick + 5); // different ticks to the ones thrown away
+                    sim.tick();
+                }
+                log.save(inputs.getPath());
+
+                InputLog replay = InputLog.load(inputs.getPath());
+                checkEquals(log.size(), replay.size(), "inputs saved");
+                BugSimulation replayed = createSimulation(3, 200, 60);
+                while (replayed.getActCounter() < sim.getActCounter()){
+                    replay.replay(replayed);
+                    replayed.tick();
+                }
+                checkEquals(stateHash(sim), stateHash(replayed), "state after playing back");
+            } finally {
+                checkpoint.delete();
+                inputs.delete();
+            }
+        }
+
+        private static void record (InputLog log, BugSimulation sim, int tick)
+        {
+            if (tick % 37 == 0){
+                log.perform(sim, InputLog.SPAWN_BUG);
+            }
+            if (tick % 300 == 150){
+                log.perform(sim, InputLog.BOMB_FLOWERS);
+            }
+        }
+    }
+
+    /**
+     * Every event logged ends up in the file, in order, as one record: the length (17), the type,
+     * then the tick, x, y and value, all little-endian. Opening the same file again adds to it.
+     */
+    private static class EventLogFormat extends UnitTest
+    {
+        public EventLogFormat ()
+        {
+            super("EventLog writes every event in the record format");
+        }
+
+        public void run () throws Exception
+        {
+            File file = File.createTempFile("events", ".bin");
+            try {
+                int count = 10000;
+                for (int pass = 0; pass < 2; pass++){
+                    EventLog log = new EventLog(file.getPath(), 64);
+                    for (int i = 0; i < count; i++){
+                        while (!log.log((byte)(i % 8 + 1), i, i * 3, -i, pass * count + i)){
+                            Thread.yield(); // the queue is tiny, so wait for the writer to catch up
+                        }
+                    }
+                    log.close();
+                    checkEquals(0, log.getPending(), "events left after closing");
+                }
+
+                ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+                checkEquals(2 * count * 21, buf.remaining(), "file size");
+                for (int k = 0; k < 2 * count; k++){
+                    int i = k % count;
+                    checkEquals(17, buf.getInt(), "length of record " + k);
+                    checkEquals(i % 8 + 1, buf.get(), "type of record " + k);
+                    checkEquals(i, buf.getInt(), "tick of record " + k);
+                    checkEquals(i * 3, buf.getInt(), "x of record " + k);
+                    checkEquals(-i, buf.getInt(), "y of record " + k);
+                    checkEquals(k, buf.getInt(), "value of record " + k);
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+}
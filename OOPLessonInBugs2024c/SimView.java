@@ -0,0 +1,25 @@
+/**
+ * An Actor that shows a SimEntity on the screen, and can be switched over to show a different
+ * one. This is what lets a ZSorter change the order things are painted in without removing
+ * and re-adding Actors: the Actors stay where they are in Greenfoot's paint order, and the
+ * models are handed out to them in order of their y coordinate instead.
+ */
+public interface SimView
+{
+    /**
+     * @return SimEntity    the model being shown
+     */
+    public SimEntity getModel ();
+
+    /**
+     * Start showing a different model. The view should catch up with it right away.
+     */
+    public void setModel (SimEntity model);
+
+    /**
+     * The position of this view in its ZSorter - only to be used by the ZSorter.
+     */
+    public int getZIndex ();
+
+    public void setZIndex (int index);
+}
@@ -0,0 +1,37 @@
+/**
+ * Something that wants to know when things come and go in a BugSimulation - for example the
+ * DesertWorld, which creates and removes the Actors that show the simulation on screen.
+ */
+public interface SimulationListener
+{
+    public void bugAdded (SimBug bug);
+
+    /**
+     * @param eaten     true if a Frog ate this Bug, false if it starved
+     */
+    public void bugRemoved (SimBug bug, boolean eaten);
+
+    public void flowerAdded (SimFlower flower);
+
+    public void flowerRemoved (SimFlower flower);
+
+    public void eggAdded (SimEgg egg);
+
+    public void eggRemoved (SimEgg egg);
+
+    public void deadBugAdded (SimDeadBug deadBug);
+
+    public void deadBugRemoved (SimDeadBug deadBug);
+
+    public void frogAdded (SimFrog frog);
+
+    /**
+     * A Bug took a bite out of a Flower (this can happen many times in one tick).
+     */
+    public void flowerNibbled (SimFlower flower);
+
+    /**
+     * An Egg has cracked (half of its Bugs have hatched).
+     */
+    public void eggCracked (SimEgg egg);
+}
@@ -0,0 +1,384 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform spatial hash grid. The World is cut up into square cells of a fixed size, and each
+ * item is stored in the cell that contains its (x, y) position. Looking for something close by
+ * then only means looking at a few nearby cells instead of every object in the World.
+ *
+ * <p>Each cell keeps its items and their coordinates in plain arrays which only grow when a cell
+ * runs out of room, so adding, removing and searching do not create any new objects while the
+ * simulation is running.</p>
+ *
+ * <p>This class does not know anything about Greenfoot - the caller is responsible for telling the
+ * grid where each item is when it is added, moved and removed. Items that move (see BugPopulation)
+ * report each new position through move(), which only has to shuffle arrays around when the item
+ * crosses into a different cell.</p>
+ */
+public class SpatialGrid<T>
+{
+    private static final int STARTING_CELL_CAPACITY = 4;
+
+    private int cellSize;
+    private int cols;
+    private int rows;
+
+    // One set of arrays per cell
+    private Object[][] cellItems;
+    private int[][] cellXs;
+    private int[][] cellYs;
+    private int[] cellCounts;
+
+    private int size;
+
+    // Scratch space used by getNearest (k) so it doesn't need to allocate
+    private long[] kDistances = new long[0];
+
+    /**
+     * Create a grid big enough to cover a World of the given size.
+     *
+     * @param worldWidth    the width of the area to cover, in pixels
+     * @param worldHeight   the height of the area to cover, in pixels
+     * @param cellSize      the width and height of each cell, in pixels
+     */
+    public SpatialGrid (int worldWidth, int worldHeight, int cellSize)
+    {
+        this.cellSize = cellSize;
+        cols = (worldWidth + cellSize - 1) / cellSize;
+        rows = (worldHeight + cellSize - 1) / cellSize;
+
+        int cells = cols * rows;
+        cellItems = new Object[cells][];
+        cellXs = new int[cells][];
+        cellYs = new int[cells][];
+        cellCounts = new int[cells];
+        for (int i = 0; i < cells; i++){
+            cellItems[i] = new Object[STARTING_CELL_CAPACITY];
+            cellXs[i] = new int[STARTING_CELL_CAPACITY];
+            cellYs[i] = new int[STARTING_CELL_CAPACITY];
+        }
+    }
+
+    /**
+     * Add an item to the grid at the given location.
+     */
+    public void add (T item, int x, int y)
+    {
+        insert(cellIndex(x, y), item, x, y);
+        size++;
+    }
+
+    /**
+     * Remove an item from the grid. The location must be the same one that was used
+     * when the item was added.
+     *
+     * @return boolean  true if the item was found and removed
+     */
+    public boolean remove (T item, int x, int y)
+    {
+        int cell = cellIndex(x, y);
+        Object[] items = cellItems[cell];
+        int count = cellCounts[cell];
+        for (int i = 0; i < count; i++){
+            if (items[i] == item){
+                removeAt(cell, i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tell the grid that an item has moved. If the item is still in the same cell, only its
+     * stored position changes; otherwise it is moved over to its new cell.
+     *
+     * <p>Takes any Object, as it only has to find the item that is already there.</p>
+     *
+     * @return boolean  true if the item was found
+     */
+    public boolean move (Object item, int oldX, int oldY, int newX, int newY)
+    {
+        int oldCell = cellIndex(oldX, oldY);
+        int newCell = cellIndex(newX, newY);
+        Object[] items = cellItems[oldCell];
+        int count = cellCounts[oldCell];
+        for (int i = 0; i < count; i++){
+            if (items[i] == item){
+                if (oldCell == newCell){
+                    cellXs[oldCell][i] = newX;
+                    cellYs[oldCell][i] = newY;
+                } else {
+                    removeAt(oldCell, i);
+                    insert(newCell, item, newX, newY);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove everything from the grid.
+     */
+    public void clear ()
+    {
+        for (int i = 0; i < cellCounts.length; i++){
+            Arrays.fill(cellItems[i], 0, cellCounts[i], null);
+            cellCounts[i] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Get every item, cell by cell, in the order each cell keeps them. Adding them back to an
+     * empty grid in this order (at the same places) gives exactly the same grid - which matters,
+     * because when two items are the same distance away, the searches find whichever one comes
+     * first in its cell.
+     *
+     * @param results   a List that the items will be added to. It is cleared first.
+     */
+    public void getAll (List<T> results)
+    {
+        results.clear();
+        for (int cell = 0; cell < cellCounts.length; cell++){
+            for (int i = 0; i < cellCounts[cell]; i++){
+                results.add(castItem(cellItems[cell][i]));
+            }
+        }
+    }
+
+    /**
+     * @return int  the number of items currently in the grid
+     */
+    public int size ()
+    {
+        return size;
+    }
+
+    /**
+     * How much work getNearest() does: the number of cells it looks through when the closest item
+     * is at the given distance. A search that finds nothing looks through every ring out to its
+     * maxRange, so pass the maxRange as the distance for that.
+     *
+     * @param distance  how far away the closest item was (or the maxRange, if nothing was found)
+     * @return int      about how many cells were checked
+     */
+    public int getSearchCost (int distance)
+    {
+        int lastRing = Math.max(0, distance) / cellSize + 1;
+        int side = lastRing * 2 + 1;
+        return side * side;
+    }
+
+    /**
+     * Find the closest item to a point. The search starts with the cell that contains the point,
+     * then checks rings of cells further and further out, and stops as soon as no unchecked cell
+     * could possibly hold anything closer than what has already been found.
+     *
+     * @param x         the x coordinate to search from
+     * @param y         the y coordinate to search from
+     * @param maxRange  items further away than this are ignored
+     * @return T        the closest item, or null if nothing is within range
+     */
+    public T getNearest (int x, int y, int maxRange)
+    {
+        int cx = cellX(x);
+        int cy = cellY(y);
+        long bestDistSq = (long)maxRange * maxRange;
+        Object best = null;
+
+        int maxRing = maxRange / cellSize + 1;
+        for (int ring = 0; ring <= maxRing; ring++){
+            // Anything in this ring (or further out) is at least this far away
+            long ringMin = (long)(ring - 1) * cellSize;
+            if (ring > 1 && ringMin * ringMin > bestDistSq){
+                break;
+            }
+            for (int dy = -ring; dy <= ring; dy++){
+                int row = cy + dy;
+                if (row < 0 || row >= rows){
+                    continue;
+                }
+                // Full rows along the top and bottom of the ring, only the two ends otherwise
+                int step = (dy == -ring || dy == ring) ? 1 : Math.max(1, ring * 2);
+                for (int dx = -ring; dx <= ring; dx += step){
+                    int col = cx + dx;
+                    if (col < 0 || col >= cols){
+                        continue;
+                    }
+                    int cell = row * cols + col;
+                    Object[] items = cellItems[cell];
+                    int[] xs = cellXs[cell];
+                    int[] ys = cellYs[cell];
+                    int count = cellCounts[cell];
+                    for (int i = 0; i < count; i++){
+                        long ddx = xs[i] - x;
+                        long ddy = ys[i] - y;
+                        long distSq = ddx * ddx + ddy * ddy;
+                        if (distSq < bestDistSq || (best == null && distSq == bestDistSq)){
+                            bestDistSq = distSq;
+                            best = items[i];
+                        }
+                    }
+                }
+            }
+        }
+        return castItem(best);
+    }
+
+    /**
+     * Find up to k of the closest items to a point, closest first.
+     *
+     * @param x         the x coordinate to search from
+     * @param y         the y coordinate to search from
+     * @param maxRange  items further away than this are ignored
+     * @param results   an array (length of at least k) to be filled with the closest items. Reuse
+     *                  the same array between calls to avoid creating garbage.
+     * @param k         the maximum number of items to find
+     * @return int      how many items were placed into results
+     */
+    public int getNearest (int x, int y, int maxRange, T[] results, int k)
+    {
+        if (kDistances.length < k){
+            kDistances = new long[k];
+        }
+        int cx = cellX(x);
+        int cy = cellY(y);
+        long rangeSq = (long)maxRange * maxRange;
+        int found = 0;
+
+        int maxRing = maxRange / cellSize + 1;
+        for (int ring = 0; ring <= maxRing && k > 0; ring++){
+            long ringMin = (long)(ring - 1) * cellSize;
+            if (ring > 1 && found == k && ringMin * ringMin > kDistances[k - 1]){
+                break;
+            }
+            for (int dy = -ring; dy <= ring; dy++){
+                int row = cy + dy;
+                if (row < 0 || row >= rows){
+                    continue;
+                }
+                int step = (dy == -ring || dy == ring) ? 1 : Math.max(1, ring * 2);
+                for (int dx = -ring; dx <= ring; dx += step){
+                    int col = cx + dx;
+                    if (col < 0 || col >= cols){
+                        continue;
+                    }
+                    int cell = row * cols + col;
+                    int count = cellCounts[cell];
+                    for (int i = 0; i < count; i++){
+                        long ddx = cellXs[cell][i] - x;
+                        long ddy = cellYs[cell][i] - y;
+                        long distSq = ddx * ddx + ddy * ddy;
+                        if (distSq > rangeSq || (found == k && distSq >= kDistances[k - 1])){
+                            continue;
+                        }
+                        // Insertion into the (small, sorted) result list
+                        int pos = found < k ? found++ : k - 1;
+                        while (pos > 0 && kDistances[pos - 1] > distSq){
+                            kDistances[pos] = kDistances[pos - 1];
+                            results[pos] = results[pos - 1];
+                            pos--;
+                        }
+                        kDistances[pos] = distSq;
+                        results[pos] = castItem(cellItems[cell][i]);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find every item within a given range of a point. Items are not in any particular order.
+     *
+     * @param x         the x coordinate to search from
+     * @param y         the y coordinate to search from
+     * @param range     the search radius
+     * @param results   a List that matching items will be added to. It is cleared first, so the
+     *                  same List can be reused every time.
+     * @return int      the number of items found
+     */
+    public int getInRange (int x, int y, int range, List<T> results)
+    {
+        results.clear();
+        long rangeSq = (long)range * range;
+        int minCol = cellX(x - range);
+        int maxCol = cellX(x + range);
+        int minRow = cellY(y - range);
+        int maxRow = cellY(y + range);
+        for (int row = minRow; row <= maxRow; row++){
+            for (int col = minCol; col <= maxCol; col++){
+                int cell = row * cols + col;
+                int count = cellCounts[cell];
+                for (int i = 0; i < count; i++){
+                    long ddx = cellXs[cell][i] - x;
+                    long ddy = cellYs[cell][i] - y;
+                    if (ddx * ddx + ddy * ddy <= rangeSq){
+                        results.add(castItem(cellItems[cell][i]));
+                    }
+                }
+            }
+        }
+        return results.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T castItem (Object item)
+    {
+        return (T)item;
+    }
+
+    private void insert (int cell, Object item, int x, int y)
+    {
+        int count = cellCounts[cell];
+        if (count == cellItems[cell].length){
+            grow(cell);
+        }
+        cellItems[cell][count] = item;
+        cellXs[cell][count] = x;
+        cellYs[cell][count] = y;
+        cellCounts[cell] = count + 1;
+    }
+
+    private void removeAt (int cell, int i)
+    {
+        // Fill the gap with the last item in the cell - order within a cell doesn't matter
+        int last = cellCounts[cell] - 1;
+        cellItems[cell][i] = cellItems[cell][last];
+        cellXs[cell][i] = cellXs[cell][last];
+        cellYs[cell][i] = cellYs[cell][last];
+        cellItems[cell][last] = null;
+        cellCounts[cell] = last;
+    }
+
+    private int cellX (int x)
+    {
+        int col = x / cellSize;
+        if (col < 0) return 0;
+        if (col >= cols) return cols - 1;
+        return col;
+    }
+
+    private int cellY (int y)
+    {
+        int row = y / cellSize;
+        if (row < 0) return 0;
+        if (row >= rows) return rows - 1;
+        return row;
+    }
+
+    private int cellIndex (int x, int y)
+    {
+        return cellY(y) * cols + cellX(x);
+    }
+
+    private void grow (int cell)
+    {
+        int newCapacity = cellItems[cell].length * 2;
+        cellItems[cell] = Arrays.copyOf(cellItems[cell], newCapacity);
+        cellXs[cell] = Arrays.copyOf(cellXs[cell], newCapacity);
+        cellYs[cell] = Arrays.copyOf(cellYs[cell], newCapacity);
+    }
+}
@@ -1,4 +1,5 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.HashMap;
 
 /**
  * <p>A useful label to display game score, stats, or other texts.</p>
@@ -13,11 +14,23 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
  *   <li>Auto-width - now fits itself to the Width of the World (for other size, consider SuperTextBox instead)</li>
  *   <li>Added constants for DEFAULTS</li>
  * </ul>
+ * <h3><b>Version 1.3</b></h3>
+ * <ul>
+ *   <li>getStringWidth now adds up the width of each character, using the real font metrics. These are
+ *       measured once per font and saved, so centering text is very fast and doesn't make any images. Where
+ *       font metrics aren't available (e.g. on the Gallery), the old pixel-scanning method is still used.</li>
+ * </ul>
+ * <h3><b>Version 1.4</b></h3>
+ * <ul>
+ *   <li>New update method that takes a char array. Each character is drawn once onto its own small image
+ *       the first time, and after that the text is put together by copying those images - so a label that
+ *       changes often (like a live stats display) doesn't need a new String every time it changes.</li>
+ * </ul>
  *   
  * 
  * @author Jordan Cohen
  * @since November 2015 (formerly ScoreBar)
- * @version 1.2 (Jan 2023)
+ * @version 1.4
  */
 public class SuperDisplayLabel extends Actor
 {
@@ -29,6 +42,12 @@ public class SuperDisplayLabel extends Actor
     private static final Color DEFAULT_TEXT_COLOR = Color.BLACK;
     
     private static final Font DEFAULT_FONT = new Font ("Comic Sans MS", false, false, 20);
+
+    // Character widths for each font that has been measured, so each font only needs to be measured once
+    private static final int CACHED_CHARS = 256; // widths are saved for these characters, others are looked up
+    private static final HashMap<String, FontWidths> fontWidths = new HashMap<String, FontWidths>();
+    private static Font lastFont;
+    private static FontWidths lastFontWidths;
     
     private GreenfootImage image;
     private Color backColor;
@@ -41,6 +60,12 @@ public class SuperDisplayLabel extends Actor
     private int[] intValues;
     private int centeredX;
     private int bottomY, height;
+
+    // Pre-drawn characters for update(char[], int) - made the first time they are needed
+    private static final char FIRST_GLYPH = ' ';
+    private static final char LAST_GLYPH = '~';
+    private GreenfootImage[] glyphs;
+    private int[] glyphWidths;
     
     
         /**
@@ -188,8 +213,8 @@ public class SuperDisplayLabel extends Actor
      * than a bunch of labels and values. This is the only method that actually updates the Image.
      * 
      * @param   output  A string to be output, centered on the screen.
-     * @param   recenter    if true, this will recalculate and center the text. Use this
-     *                      sparingly, as the recalculation is fairly demanding on the CPU.
+     * @param   recenter    if true, this will recalculate and center the text. This is quick
+     *                      once the font's character widths have been measured (see getStringWidth).
      */
     public void update (String output, boolean recenter)
     {
@@ -217,6 +242,65 @@ public class SuperDisplayLabel extends Actor
         lastOutput = output;
     }
 
+    /**
+     * Display the first length characters of a char array, centered. This does the same thing as
+     * update(String), but copies pre-drawn characters instead of drawing a String, so the array can
+     * be filled in again and reused for the next update without making anything new. Characters
+     * other than plain ASCII are shown as '?'.
+     * 
+     * @param output    the characters to display
+     * @param length    how many of them to display
+     */
+    public void update (char[] output, int length)
+    {
+        if (image == null){
+            return; // not in a World yet
+        }
+        if (glyphs == null){
+            makeGlyphs();
+        }
+        image.setColor(backColor);
+        image.fill();
+        int width = 0;
+        for (int i = 0; i < length; i++){
+            width += glyphWidths[glyphFor(output[i])];
+        }
+        int x = image.getWidth()/2 - width/2;
+        for (int i = 0; i < length; i++){
+            int g = glyphFor(output[i]);
+            image.drawImage(glyphs[g], x, 0);
+            x += glyphWidths[g];
+        }
+        lastOutput = null; // so the next update(String) draws, even if it's the same as before
+    }
+
+    private int glyphFor (char c){
+        if (c < FIRST_GLYPH || c > LAST_GLYPH){
+            c = '?';
+        }
+        return c - FIRST_GLYPH;
+    }
+
+    /**
+     * Draw each character onto its own image, the full height of this label, so they can be
+     * copied side by side.
+     */
+    private void makeGlyphs (){
+        glyphs = new GreenfootImage[LAST_GLYPH - FIRST_GLYPH + 1];
+        glyphWidths = new int[glyphs.length];
+        for (int i = 0; i < glyphs.length; i++){
+            String c = String.valueOf((char)(FIRST_GLYPH + i));
+            glyphWidths[i] = getStringWidth(textFont, c);
+            GreenfootImage glyph = new GreenfootImage(Math.max(1, glyphWidths[i]), image.getHeight());
+            glyph.setColor(backColor);
+            glyph.fill();
+            glyph.setFont(textFont);
+            glyph.setColor(foreColor);
+            glyph.drawString(c, 0, bottomY);
+            glyphs[i] = glyph;
+        }
+    }
+
     /**
      * <h3>Finally, draw centered text in Greenfoot!</h3>
      * <p>
@@ -255,6 +339,88 @@ public class SuperDisplayLabel extends Actor
         canvas.drawString (text, canvas.getWidth()/2 - (getStringWidth(canvas.getFont(), text)/2), bottomY);
     }
 
+    /**
+     * Get the Width of a String, if it was printed out using the drawString command in a particular
+     * Font.
+     * 
+     * <p>This adds up the width of each character, using the font's metrics. The widths for each font
+     * are measured the first time the font is used and then saved, so after that this is just a quick
+     * loop - fine to call as often as needed. If font metrics aren't available (for example on the
+     * Gallery) this uses the pixel-scanning method below instead.</p>
+     * 
+     * @param font the GreenFoot.Font which is being used to draw text
+     * @param text the actual text to be drawn
+     * @return int  the width of the String text as draw in Font font, in pixels.
+     * 
+     * @since June 2021
+     * @version 1.3 - Adds up character widths from the font's metrics, instead of scanning pixels
+     */
+    public static int getStringWidth (Font font, String text){
+        FontWidths widths = getFontWidths(font);
+        if (widths == null){
+            return scanStringWidth(font, text);
+        }
+        int total = 0;
+        for (int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            total += c < CACHED_CHARS ? widths.advances[c] : widths.metrics.charWidth(c);
+        }
+        return total;
+    }
+
+    /**
+     * Find the saved character widths for a font, measuring them if this is the first time.
+     * 
+     * @return FontWidths   the widths, or null if font metrics can't be used here
+     */
+    private static FontWidths getFontWidths (Font font){
+        if (font == lastFont){
+            return lastFontWidths;
+        }
+        String key = font.getName() + "/" + font.isBold() + "/" + font.isItalic() + "/" + font.getSize();
+        FontWidths widths;
+        if (fontWidths.containsKey(key)){
+            widths = fontWidths.get(key);
+        } else {
+            widths = measureFont(font);
+            fontWidths.put(key, widths); // null is saved too, so there's no need to try again
+        }
+        lastFont = font;
+        lastFontWidths = widths;
+        return widths;
+    }
+
+    /**
+     * Measure every character of a font, the same way Greenfoot draws it (with anti-aliasing).
+     */
+    private static FontWidths measureFont (Font font){
+        try {
+            int style = (font.isBold() ? java.awt.Font.BOLD : 0) | (font.isItalic() ? java.awt.Font.ITALIC : 0);
+            java.awt.Font awtFont = new java.awt.Font(font.getName(), style, font.getSize());
+            java.awt.image.BufferedImage scratch = new java.awt.image.BufferedImage(1, 1, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+            java.awt.Graphics2D g = scratch.createGraphics();
+            g.setRenderingHint(java.awt.RenderingHints.KEY_TEXT_ANTIALIASING, java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            FontWidths widths = new FontWidths();
+            widths.metrics = g.getFontMetrics(awtFont);
+            g.dispose();
+            widths.advances = new int[CACHED_CHARS];
+            for (int c = 0; c < CACHED_CHARS; c++){
+                widths.advances[c] = widths.metrics.charWidth((char)c);
+            }
+            return widths;
+        } catch (Throwable e) { // no AWT here (e.g. Gallery) - fall back to scanning pixels
+            return null;
+        }
+    }
+
+    /**
+     * The saved character widths for one font.
+     */
+    private static class FontWidths {
+        int[] advances;
+        java.awt.FontMetrics metrics;
+    }
+
      /**
      * <h3>Mr. Cohen's Text Centering Algorithm</h3>
      * 
@@ -285,8 +451,10 @@ public class SuperDisplayLabel extends Actor
      * 
      * @since June 2021
      * @version December 2021 - Even more Efficiency Improvement - sub 0.06ms per update on setSpeed(100)!
+     * @version 1.3 - Now only used when font metrics aren't available (see getStringWidth), and
+     *          not private so WorldBenchmarks can compare the two
      */
-    public static int getStringWidth (Font font, String text){
+    static int scanStringWidth (Font font, String text){
         
         // Dividing font size by 1.2 should work for even the widest fonts, as fonts are
         // taller than wide. For example, a 24 point font is usually 24 points tall 
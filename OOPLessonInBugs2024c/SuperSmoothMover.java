@@ -1,4 +1,6 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, and Greenfoot)
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 
 /**
  * <p>A variation of an actor that maintains a precise location (using doubles for the co-ordinates
@@ -24,6 +26,12 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, and Greenfoot)
  *    with staticRotation enabled. (Note that these new commands will do nothing if sR is disabled)</p>
  * <p>Version 1.24 update (1/24) - (Version numbers now match library version numbers) - Some performance optimizations via
  *     caching common trig ratios and ensuring turnTowards can deal with trying to turn towards same pixel</p>
+ * <p>Z-order support - a SuperSmoothMover can be given a ZSorter with setZSorter(), and will then
+ *     report every change in its y coordinate to it.</p>
+ * <p>Rotation cache - call enableRotationCache(step) and, instead of Greenfoot rotating the image every time it is
+ *     drawn, this Actor will show a pre-rotated copy of its image, to the nearest step degrees. The copies are shared
+ *     by every SuperSmoothMover with the same image and step, and each one is only made the first time it is needed,
+ *     so thousands of Actors with the same image cost no more than one. (Not used while static rotation is on.)</p>
  * 
  * 
  * @author Poul Henriksen
@@ -41,6 +49,14 @@ public abstract class SuperSmoothMover extends Actor
     private boolean staticRotation = false;
     private double cosRotation;
     private double sinRotation;
+    private ZSorter zSorter;
+
+    // Pre-rotated copies of each image, for each step size (see enableRotationCache)
+    private static final HashMap<Integer, IdentityHashMap<GreenfootImage, GreenfootImage[]>> rotatedImages = new HashMap<Integer, IdentityHashMap<GreenfootImage, GreenfootImage[]>>();
+    private int rotationStep; // 0 when the rotation cache is off
+    private GreenfootImage unrotatedImage;
+    private GreenfootImage[] rotatedFrames;
+    private int shownFrame = -1;
 
     public SuperSmoothMover (){
         staticRotation = false;
@@ -79,6 +95,10 @@ public abstract class SuperSmoothMover extends Actor
      * will not change. Note that the disableStaticRotation() method can be used to turn this off.
      */
     public void enableStaticRotation (){
+        if (rotatedFrames != null){
+            super.setImage(unrotatedImage);
+            shownFrame = -1;
+        }
         super.setRotation(0);
         staticRotation = true;
         preciseRotation = 0.0;
@@ -89,8 +109,118 @@ public abstract class SuperSmoothMover extends Actor
      * is disabled. 
      */
     public void disableStaticRotation (){
-        super.setRotation((int)(preciseRotation + 0.5));
         staticRotation = false;
+        showRotation();
+    }
+
+    /**
+     * Turn on the rotation cache. From now on, this Actor's image is not rotated by Greenfoot - instead, it
+     * shows a copy of its image that was rotated ahead of time, to the nearest step degrees. The copies are
+     * shared with every other SuperSmoothMover using the same image and step. Changing the image with
+     * setImage() is fine, it will be rotated in the same way.
+     * 
+     * @param step  the number of degrees between each rotated copy, for example 5 (should divide into 360)
+     */
+    public void enableRotationCache (int step){
+        rotationStep = Math.max(1, Math.min(360, step));
+        GreenfootImage image = unrotatedImage != null ? unrotatedImage : getImage();
+        super.setRotation(0);
+        useImage(image);
+    }
+
+    /**
+     * Turn off the rotation cache, going back to Greenfoot rotating the image itself.
+     */
+    public void disableRotationCache (){
+        if (rotationStep == 0){
+            return;
+        }
+        rotationStep = 0;
+        rotatedFrames = null;
+        shownFrame = -1;
+        super.setImage(unrotatedImage);
+        unrotatedImage = null;
+        showRotation();
+    }
+
+    /**
+     * Set the image. If the rotation cache is on, this is the image that will be shown rotated.
+     * (Overrides the method in Actor.)
+     * 
+     * @param image the new (unrotated) image
+     */
+    @Override
+    public void setImage (GreenfootImage image){
+        if (rotationStep == 0){
+            super.setImage(image);
+        } else if (image != unrotatedImage){
+            useImage(image);
+        }
+    }
+
+    /**
+     * Start using a new image with the rotation cache on.
+     */
+    private void useImage (GreenfootImage image){
+        unrotatedImage = image;
+        rotatedFrames = null;
+        shownFrame = -1;
+        if (image == null){
+            super.setImage(image);
+            return;
+        }
+        IdentityHashMap<GreenfootImage, GreenfootImage[]> forStep = rotatedImages.get(rotationStep);
+        if (forStep == null){
+            forStep = new IdentityHashMap<GreenfootImage, GreenfootImage[]>();
+            rotatedImages.put(rotationStep, forStep);
+        }
+        rotatedFrames = forStep.get(image);
+        if (rotatedFrames == null){
+            rotatedFrames = new GreenfootImage[(360 + rotationStep - 1) / rotationStep];
+            forStep.put(image, rotatedFrames);
+        }
+        showRotation();
+    }
+
+    /**
+     * Show the current rotation - either by having Greenfoot rotate the image, or by picking the closest
+     * pre-rotated copy. Nothing happens with static rotation on.
+     */
+    private void showRotation (){
+        if (staticRotation){
+            return;
+        }
+        if (rotatedFrames == null){
+            if (rotationStep == 0){
+                super.setRotation ((int)(preciseRotation + 0.5));
+            }
+            return;
+        }
+        int frame = (int)Math.round(preciseRotation / rotationStep) % rotatedFrames.length;
+        if (frame < 0){
+            frame += rotatedFrames.length;
+        }
+        if (frame == shownFrame){
+            return;
+        }
+        if (rotatedFrames[frame] == null){
+            rotatedFrames[frame] = drawRotated(unrotatedImage, frame * rotationStep);
+        }
+        shownFrame = frame;
+        super.setImage(rotatedFrames[frame]);
+    }
+
+    /**
+     * Make a rotated copy of an image. The copy is square, and big enough that no corners get cut off.
+     */
+    private static GreenfootImage drawRotated (GreenfootImage image, int degrees){
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int side = (int)Math.ceil(Math.hypot(w, h));
+        GreenfootImage rotated = new GreenfootImage(side, side);
+        rotated.drawImage(image, (side - w) / 2, (side - h) / 2);
+        rotated.rotate(degrees);
+        return rotated;
     }
 
     /** 
@@ -111,8 +241,7 @@ public abstract class SuperSmoothMover extends Actor
      */
     public void setRotation (double preciseRotation){
         this.preciseRotation = preciseRotation;
-        if(!staticRotation)
-            super.setRotation ((int)(preciseRotation + 0.5));
+        showRotation();
         cosRotation = Math.cos(Math.toRadians(preciseRotation));
         sinRotation = Math.sin(Math.toRadians(preciseRotation));
     }
@@ -160,8 +289,7 @@ public abstract class SuperSmoothMover extends Actor
     @Override
     public void turn (int angle){
         preciseRotation += angle;
-        if(!staticRotation)
-            super.setRotation ((int)(preciseRotation + 0.5));
+        showRotation();
         cosRotation = Math.cos(Math.toRadians(preciseRotation));
         sinRotation = Math.sin(Math.toRadians(preciseRotation));
     }
@@ -173,8 +301,7 @@ public abstract class SuperSmoothMover extends Actor
      */
     public void turn (double angle){
         preciseRotation += angle;
-        if(!staticRotation)
-            super.setRotation ((int)(preciseRotation + 0.5));
+        showRotation();
         cosRotation = Math.cos(Math.toRadians(preciseRotation));
         sinRotation = Math.sin(Math.toRadians(preciseRotation));
     }
@@ -189,7 +316,15 @@ public abstract class SuperSmoothMover extends Actor
     {
         exactX = x;
         exactY = y;
-        super.setLocation((int) (x + 0.5), (int) (y + 0.5));
+        if (zSorter == null){
+            super.setLocation((int) (x + 0.5), (int) (y + 0.5));
+        } else {
+            int oldY = getY();
+            super.setLocation((int) (x + 0.5), (int) (y + 0.5));
+            if (getY() != oldY){
+                zSorter.markMoved((SimView)this);
+            }
+        }
     }
 
     /**
@@ -204,7 +339,27 @@ public abstract class SuperSmoothMover extends Actor
     {
         exactX = x;
         exactY = y;
-        super.setLocation(x, y);
+        if (zSorter == null){
+            super.setLocation(x, y);
+        } else {
+            int oldY = getY();
+            super.setLocation(x, y);
+            if (getY() != oldY){
+                zSorter.markMoved((SimView)this);
+            }
+        }
+    }
+
+    /**
+     * Set the ZSorter that this Actor is in (only for Actors that are a SimView). From now on,
+     * every time setLocation changes this Actor's y coordinate, the ZSorter will be told so it
+     * can fix the paint order a little at a time.
+     * 
+     * @param sorter    the sorter this Actor is in, or null to stop reporting moves
+     */
+    public void setZSorter (ZSorter sorter)
+    {
+        zSorter = sorter;
     }
 
     /**
@@ -290,7 +445,7 @@ public abstract class SuperSmoothMover extends Actor
 
     @Override
     public int getRotation (){
-        if (!staticRotation){
+        if (!staticRotation && rotationStep == 0){
             return super.getRotation();
         } else {
             return (int)(preciseRotation + 0.5);
@@ -1,5 +1,6 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
 import java.util.Arrays;
+import java.util.HashMap;
 /**
  * <p>New and Improved Stat Bar (Formerly Health Bar). This stat bar can be set to follow
  * an Actor or stay in one place (see constructors). This stat bar may have customized colors,
@@ -39,10 +40,20 @@ import java.util.Arrays;
  * <li>2.1.0 --> Added a border feature, allows customization of thickness and colour</li>
  * <li>2.1.2 --> Improved naming of some variables, improved efficiency of update</li>
  * <li>2.2.0 --> Better control of hideAtMax, now with default constant, accessor and mutator</li>
+ * <li>2.3.0 --> Bars with a single stat now share images. Every bar with the same size, colours and border
+ *      uses one "strip" of images, one for each possible filled width, each drawn the first time it is
+ *      needed. Updating just picks the right image (and does nothing if the filled width hasn't changed),
+ *      so there is no drawing and no image per bar. Because the images are shared, don't draw on the
+ *      image of a single stat bar.</li>
+ * <li>2.4.0 --> Added reset(), so a single stat bar can be reused (for example, along with a pooled owner - see
+ *      ActorPool) instead of making a new one.</li>
+ * <li>2.5.0 --> Added setReactive(). A reactive bar doesn't follow its target in act() - the target calls moveMe()
+ *      when it moves instead, so a bar on something that never moves costs nothing. The owner is then in charge
+ *      of removing the bar when it leaves the World.</li>
  * </ul>
  * 
  * @author Jordan Cohen
- * @version 2.2.0 - Jan 2023
+ * @version 2.5.0
  */
 public class SuperStatBar extends Actor
 {
@@ -50,6 +61,12 @@ public class SuperStatBar extends Actor
     // When using the simplest constructor, this allows control of whether bars
     // should hide by default when at 100%
     private static final boolean HIDE_AT_MAX_DEFAULT = false;
+
+    // Shared images for single stat bars - one strip for each combination of size, colours and
+    // border, with one image for each filled width (see getStrip)
+    private static final HashMap<String, GreenfootImage[]> strips = new HashMap<String, GreenfootImage[]>();
+    private static GreenfootImage sharedBlank;
+    private static final int HIDDEN = -2;
     
     // Declare Instance Variables
     private int[] maxVals;
@@ -67,6 +84,8 @@ public class SuperStatBar extends Actor
     // Declare Instance Images
     private GreenfootImage bar;
     private GreenfootImage blank;
+    private GreenfootImage[] strip; // only for single stat bars
+    private int shownWidth = -1; // the filled width being shown from the strip, or HIDDEN
 
     // Some constants - can be changed to suit size of related objects
     private int width;
@@ -76,6 +95,7 @@ public class SuperStatBar extends Actor
 
     // Declare Instance Objects
     private Actor target;
+    private boolean reactive;
 
     
     
@@ -207,9 +227,6 @@ public class SuperStatBar extends Actor
         this.filledColor = filledColor;
         this.missingColor = missingColor;
 
-        bar = new GreenfootImage (width, height);
-        blank = new GreenfootImage (1, 1);
-
         if (borderColor == null){
             borderThickness = 0;
             hasBorder = false;
@@ -219,6 +236,14 @@ public class SuperStatBar extends Actor
             this.borderThickness = borderThickness;
         }
 
+        if (barCount == 1){
+            strip = getStrip(width, height, filledColor[0], missingColor[0], hasBorder ? borderColor : null, this.borderThickness);
+            this.currVals = new int[1];
+        } else {
+            bar = new GreenfootImage (width, height);
+            blank = new GreenfootImage (1, 1);
+        }
+
         update(currVals);
 
     }
@@ -232,7 +257,18 @@ public class SuperStatBar extends Actor
      * delete this act() method and call moveMe() directly whenever your Actor moves. 
      */
     public void act () {
-        moveMe();
+        if (!reactive){
+            moveMe();
+        }
+        TickProfiler.mark(TickProfiler.STAT_BAR);
+    }
+
+    /**
+     * Choose whether this bar follows its target by itself (every act), or is reactive - only
+     * moving when moveMe() is called, for example by the target after it moves.
+     */
+    public void setReactive (boolean reactive){
+        this.reactive = reactive;
     }
 
     /**
@@ -264,7 +300,30 @@ public class SuperStatBar extends Actor
      * @param newCurrVal    the new current value for this bar.
      */
     public void update (int newCurrVal){
-        update (new int[]{newCurrVal});
+        if (strip != null){
+            updateShared(newCurrVal);
+        } else {
+            update (new int[]{newCurrVal});
+        }
+    }
+
+    /**
+     * Reset a single stat bar with a new maximum and current value, without making anything new.
+     * For a bar that is being reused - for example when its owner comes out of an ActorPool.
+     * 
+     * @param maxVal    the new maximum value for this bar
+     * @param currVal   the new current value for this bar
+     */
+    public void reset (int maxVal, int currVal){
+        if (maxVal > 0){
+            maxVals[0] = maxVal;
+        }
+        if (strip != null){
+            shownWidth = -1; // make sure the image is set again
+            updateShared(currVal);
+        } else {
+            update(new int[]{currVal});
+        }
     }
 
     /**
@@ -293,6 +352,10 @@ public class SuperStatBar extends Actor
      */
     public void update (int newCurrVals[])
     {
+        if (strip != null){
+            updateShared(newCurrVals[0]);
+            return;
+        }
         boolean updateRequired = !(Arrays.equals(currVals, newCurrVals));
 
         if (updateRequired){
@@ -324,6 +387,77 @@ public class SuperStatBar extends Actor
         }
     }
 
+    /**
+     * Update for single stat bars - work out which image from the strip to show. If it's the one
+     * already showing, there's nothing to do.
+     */
+    private void updateShared (int newCurrVal){
+        currVals[0] = newCurrVal;
+        int filledWidth;
+        if (hideAtMax && newCurrVal == maxVals[0]){
+            filledWidth = HIDDEN;
+        } else {
+            int innerWidth = strip.length - 1;
+            filledWidth = (int) ((double) newCurrVal / maxVals[0] * innerWidth);
+            // Values outside of 0 to max look the same as empty or full
+            filledWidth = Math.max(0, Math.min(innerWidth, filledWidth));
+        }
+        if (filledWidth == shownWidth){
+            return;
+        }
+        shownWidth = filledWidth;
+        if (filledWidth == HIDDEN){
+            if (sharedBlank == null){
+                sharedBlank = new GreenfootImage (1, 1);
+            }
+            this.setImage(sharedBlank);
+        } else {
+            if (strip[filledWidth] == null){
+                strip[filledWidth] = drawStripImage(filledWidth);
+            }
+            this.setImage(strip[filledWidth]);
+        }
+    }
+
+    /**
+     * Find the strip of images shared by all single stat bars that look like this, or start a new
+     * one. The images themselves are only drawn when first needed.
+     */
+    private static GreenfootImage[] getStrip (int width, int height, Color filledColor, Color missingColor, Color borderColor, int borderThickness){
+        String key = width + "x" + height + " " + colorKey(filledColor) + " " + colorKey(missingColor)
+            + " " + (borderColor == null ? "none" : colorKey(borderColor) + "/" + borderThickness);
+        GreenfootImage[] strip = strips.get(key);
+        if (strip == null){
+            strip = new GreenfootImage[Math.max(0, width - (borderThickness * 2)) + 1];
+            strips.put(key, strip);
+        }
+        return strip;
+    }
+
+    private static String colorKey (Color c){
+        return c.getRed() + "," + c.getGreen() + "," + c.getBlue() + "," + c.getAlpha();
+    }
+
+    /**
+     * Draw one image for the strip - the same drawing as redraw(), for a single bar.
+     */
+    private GreenfootImage drawStripImage (int filledBarWidth){
+        GreenfootImage image = new GreenfootImage (width, height);
+        if (hasBorder){
+            image.setColor (borderColor);
+            for (int i = 0; i < borderThickness; i++){
+                image.drawRect (i, i, width - 1 - (i * 2), height - 1 - (i * 2));
+            }
+        }
+        int extraHeight = height % 2 == 1 ? 1 : 0;
+        int missingBarWidth = width - (borderThickness*2) - filledBarWidth;
+        image.setColor(filledColor[0]);
+        image.fillRect(borderThickness, borderThickness, filledBarWidth, barHeight + extraHeight);
+        image.setColor(missingColor[0]);
+        image.fillRect(filledBarWidth + borderThickness, borderThickness, missingBarWidth, barHeight + extraHeight);
+        return image;
+    }
+
     /**
      * Set the maximum value - for StatBar objects with a single bar only.
      * 
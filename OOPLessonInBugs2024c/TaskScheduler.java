@@ -0,0 +1,276 @@
+import java.util.Arrays;
+
+/**
+ * Runs periodic jobs (like updating a stat bar every few acts) without going over a time budget.
+ *
+ * <p>Each Task has a period - how many ticks apart it should run - and a tolerance - how many
+ * ticks late it is allowed to be. Every tick, runTick() looks at the Tasks that are due and runs
+ * them, most urgent (closest to being too late) first, until the time is up. Anything left over
+ * waits for the next tick. A Task that has reached the end of its tolerance is run no matter what,
+ * so nothing is ever more out of date than its tolerance allows.</p>
+ *
+ * <p>Tasks are spread out when they are scheduled (the same idea as act numbers), so a thousand
+ * Tasks with a period of 6 don't all land on the same tick.</p>
+ *
+ * <p>A cancelled Task can be started again with reschedule(), so something that comes and goes
+ * (like a pooled Actor) can keep one Task instead of making a new one every time.</p>
+ */
+public class TaskScheduler
+{
+    private int tick;
+    private int scheduledCount;
+    private long nextId;
+
+    // Tasks that aren't due yet, by due tick, and Tasks that are due, by deadline
+    private TaskHeap waiting = new TaskHeap(false);
+    private TaskHeap due = new TaskHeap(true);
+
+    // Stats for the last tick
+    private int ranLastTick;
+    private int deferredLastTick;
+
+    /**
+     * A job for the scheduler. Keep the Task that schedule() returns to be able to cancel it
+     * (or to reschedule it later).
+     */
+    public static class Task
+    {
+        private Runnable job;
+        private int period;
+        private int tolerance;
+        private int dueTick;
+        private long id;
+        private boolean cancelled;
+        private TaskScheduler owner; // the scheduler it was last scheduled with
+        private boolean queued; // still in one of owner's heaps
+
+        private Task (Runnable job, int period, int tolerance, long id)
+        {
+            this.job = job;
+            this.period = period;
+            this.tolerance = tolerance;
+            this.id = id;
+        }
+
+        /**
+         * Stop this Task from running again.
+         */
+        public void cancel ()
+        {
+            cancelled = true;
+        }
+
+        /**
+         * @return boolean  true if this Task has been cancelled (and not rescheduled since)
+         */
+        public boolean isCancelled ()
+        {
+            return cancelled;
+        }
+
+        private int deadline ()
+        {
+            return dueTick + tolerance;
+        }
+    }
+
+    /**
+     * Schedule a job to run every period ticks, starting within the next period ticks.
+     *
+     * @param job       what to run
+     * @param period    how many ticks apart it should run (at least 1)
+     * @param tolerance how many ticks late it can be, if there isn't time for it
+     * @return Task     the Task, which can be cancelled
+     */
+    public Task schedule (Runnable job, int period, int tolerance)
+    {
+        period = Math.max(1, period);
+        Task task = new Task(job, period, Math.max(0, tolerance), nextId++);
+        queue(task);
+        return task;
+    }
+
+    /**
+     * Start a Task running again after it has been cancelled, with the same job, period and
+     * tolerance. If it is still waiting in this scheduler (it was cancelled but hasn't been
+     * cleared out yet), it just keeps its place; otherwise it is spread out like a new Task.
+     *
+     * @param task  a Task from schedule() - from this scheduler or another one
+     */
+    public void reschedule (Task task)
+    {
+        task.cancelled = false;
+        if (task.owner == this && task.queued){
+            return;
+        }
+        queue(task);
+    }
+
+    private void queue (Task task)
+    {
+        task.owner = this;
+        task.queued = true;
+        task.dueTick = tick + 1 + (scheduledCount++ % task.period); // spread Tasks out over the period
+        waiting.add(task);
+    }
+
+    /**
+     * Take a Task out of the heaps for good - unless it has been rescheduled with another
+     * scheduler in the meantime, which is now the one looking after it.
+     */
+    private void drop (Task task)
+    {
+        if (task.owner == this){
+            task.queued = false;
+        }
+    }
+
+    /**
+     * Run one tick's worth of Tasks. Tasks are run in order of urgency until System.nanoTime()
+     * reaches the deadline - after that, only Tasks that can't wait any longer are run.
+     *
+     * @param deadlineNanos     the System.nanoTime() to stop at
+     */
+    public void runTick (long deadlineNanos)
+    {
+        tick++;
+        ranLastTick = 0;
+        // Move everything that has become due over to the due heap
+        while (waiting.size() > 0 && waiting.peek().dueTick <= tick){
+            Task t = waiting.poll();
+            if (t.cancelled || t.owner != this){
+                drop(t);
+            } else {
+                due.add(t);
+            }
+        }
+        boolean outOfTime = false;
+        while (due.size() > 0){
+            Task t = due.peek();
+            if (t.cancelled || t.owner != this){
+                drop(due.poll());
+                continue;
+            }
+            if (!outOfTime && System.nanoTime() >= deadlineNanos){
+                outOfTime = true;
+            }
+            if (outOfTime && t.deadline() > tick){
+                break; // everything left can wait for another tick
+            }
+            due.poll();
+            t.job.run();
+            ranLastTick++;
+            if (t.cancelled || t.owner != this){
+                drop(t);
+            } else {
+                t.dueTick = tick + t.period;
+                waiting.add(t);
+            }
+        }
+        deferredLastTick = due.size();
+    }
+
+    /**
+     * @return int  the number of Tasks run on the last tick
+     */
+    public int getRanLastTick ()
+    {
+        return ranLastTick;
+    }
+
+    /**
+     * @return int  the number of due Tasks that were put off until a later tick last time
+     */
+    public int getDeferredLastTick ()
+    {
+        return deferredLastTick;
+    }
+
+    /**
+     * @return int  the number of Tasks waiting or due (including any cancelled ones that haven't
+     *              been cleared out yet)
+     */
+    public int size ()
+    {
+        return waiting.size() + due.size();
+    }
+
+    /**
+     * A binary heap of Tasks, ordered by due tick or by deadline (and then by the order they were
+     * scheduled, so the order is always the same).
+     */
+    private static class TaskHeap
+    {
+        private Task[] heap = new Task[64];
+        private int size;
+        private boolean byDeadline;
+
+        TaskHeap (boolean byDeadline)
+        {
+            this.byDeadline = byDeadline;
+        }
+
+        int size ()
+        {
+            return size;
+        }
+
+        Task peek ()
+        {
+            return heap[0];
+        }
+
+        void add (Task t)
+        {
+            if (size == heap.length){
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0){
+                int parent = (i - 1) / 2;
+                if (!before(t, heap[parent])){
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = t;
+        }
+
+        Task poll ()
+        {
+            Task top = heap[0];
+            Task last = heap[--size];
+            heap[size] = null;
+            if (size > 0){
+                int i = 0;
+                while (true){
+                    int child = i * 2 + 1;
+                    if (child >= size){
+                        break;
+                    }
+                    if (child + 1 < size && before(heap[child + 1], heap[child])){
+                        child++;
+                    }
+                    if (!before(heap[child], last)){
+                        break;
+                    }
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = last;
+            }
+            return top;
+        }
+
+        private boolean before (Task a, Task b)
+        {
+            int ka = byDeadline ? a.deadline() : a.dueTick;
+            int kb = byDeadline ? b.deadline() : b.dueTick;
+            if (ka != kb){
+                return ka < kb;
+            }
+            return a.id < b.id;
+        }
+    }
+}
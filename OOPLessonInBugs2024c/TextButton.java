@@ -7,7 +7,7 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
  * This should be added to, and controlled by, a world.
  * 
  * @author Jordan Cohen
- * @version v0.1.5
+ * @version v0.1.6
  */
 public class TextButton extends Actor
 {
@@ -17,6 +17,7 @@ public class TextButton extends Actor
     private GreenfootImage myAltImage;
     private String buttonText;
     private int textSize;
+    private boolean showingAlt;
 
     /**
      * Construct a TextButton given only a String
@@ -43,14 +44,14 @@ public class TextButton extends Actor
 
     public void act ()
     {
-        if (Greenfoot.mousePressed(this))
+        // Only change the image when the button is pressed or let go, not every act
+        boolean pressed = Greenfoot.mousePressed(this);
+        if (pressed != showingAlt)
         {
-            setImage (myAltImage);
-        }
-        else
-        {
-            setImage (myImage);
+            setImage (pressed ? myAltImage : myImage);
+            showingAlt = pressed;
         }
+        TickProfiler.mark(TickProfiler.BUTTON);
     }
     
     /**
@@ -68,6 +69,7 @@ public class TextButton extends Actor
         myImage.setColor (Color.BLACK);
         myImage.drawRect (0,0,tempTextImage.getWidth() + 7, tempTextImage.getHeight() + 7);
         setImage(myImage);
+        showingAlt = false;
         
         tempTextImage = new GreenfootImage (text, textSize, Color.WHITE, Color.RED);
         myAltImage = new GreenfootImage(tempTextImage.getWidth() + 8, tempTextImage.getHeight() + 8);
@@ -0,0 +1,240 @@
+import java.util.Arrays;
+
+/**
+ * Works out where the time in each tick goes - which phase of DesertWorld.act(), which part of
+ * BugSimulation.tick(), and which class of Actor - so a slow tick can be blamed on something.
+ *
+ * <p>Each part of the tick calls mark() when it finishes, with its section number. mark() adds
+ * the time since the last mark to that section, so each section is charged for everything that
+ * happened since the section before it finished. For Actors, this means each act() marks its
+ * class at the end, and the whole class adds up however its Actors are mixed together.</p>
+ *
+ * <p>Calling System.nanoTime() for every Actor isn't free, so only every few ticks are sampled.
+ * On the ticks in between (or when the profiler is off), mark() only checks one static field and
+ * returns.</p>
+ */
+public class TickProfiler
+{
+    // Sections - phases of DesertWorld.act()
+    public static final int FRAME = 0;
+    public static final int INPUT = 1;
+    // Parts of BugSimulation.tick()
+    public static final int SIM_FLOWERS_AND_STATS = 2;
+    public static final int SIM_BUGS = 3;
+    public static final int SIM_FROGS = 4;
+    public static final int SIM_FLOWERS = 5;
+    public static final int SIM_EGGS = 6;
+    public static final int SIM_DEAD_BUGS = 7;
+    public static final int SIM_CLEANUP = 8;
+    // Scheduled jobs
+    public static final int Z_SORT = 9;
+    public static final int SCORE_BAR = 10;
+    public static final int BAR_UPDATES = 11;
+    public static final int SCHEDULER = 12;
+    // act() of each class of Actor
+    public static final int BUG = 13;
+    public static final int ACTIVE_SET = 14; // Actors that were woken up (see ActiveSet)
+    public static final int DEAD_BUG = 15;
+    public static final int FROG = 16;
+    public static final int STAT_BAR = 17;
+    public static final int BUTTON = 18;
+
+    private static final String[] NAMES = {
+        "Greenfoot (repaint and wait)", "Input",
+        "Sim: spawn Flowers, stats", "Sim: Bugs", "Sim: Frogs", "Sim: Flowers", "Sim: Eggs", "Sim: Dead Bugs", "Sim: clean up",
+        "Z-sort", "Score bar", "Bar updates", "Scheduler",
+        "Bug.act", "Active set", "DeadBug.act", "Frog.act", "SuperStatBar.act", "TextButton.act"
+    };
+    public static final int SECTIONS = NAMES.length;
+
+    // The profiler that is sampling this tick, or null if this tick isn't being sampled
+    private static TickProfiler sampling;
+
+    private int sampleEvery;
+    private int ticks;
+    private long last;
+    private boolean started;
+
+    // This tick
+    private long[] tickNanos = new long[SECTIONS];
+    // Every sampled tick
+    private long[] totalNanos = new long[SECTIONS];
+    private long[] maxNanos = new long[SECTIONS];
+    private long samples;
+
+    /**
+     * @param sampleEvery   sample one tick out of this many
+     */
+    public TickProfiler (int sampleEvery)
+    {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    /**
+     * Charge the time since the last mark to a section - call this at the end of each part of
+     * the tick.
+     */
+    public static void mark (int section)
+    {
+        if (sampling != null){
+            long now = System.nanoTime();
+            sampling.tickNanos[section] += now - sampling.last;
+            sampling.last = now;
+        }
+    }
+
+    /**
+     * Called at the start of every tick (before anything else is marked). Finishes off the last
+     * tick, if it was sampled, and decides whether to sample this one.
+     */
+    public void startTick ()
+    {
+        if (sampling == this){
+            mark(FRAME); // everything since the last Actor acted
+            samples++;
+            for (int i = 0; i < SECTIONS; i++){
+                totalNanos[i] += tickNanos[i];
+                if (tickNanos[i] > maxNanos[i]){
+                    maxNanos[i] = tickNanos[i];
+                }
+                tickNanos[i] = 0;
+            }
+        }
+        sampling = null;
+        if (started && ticks++ % sampleEvery == 0){
+            sampling = this;
+            last = System.nanoTime();
+        }
+    }
+
+    /**
+     * Start sampling (from the next tick).
+     */
+    public void start ()
+    {
+        started = true;
+    }
+
+    /**
+     * Stop sampling. Whatever has been recorded so far is kept.
+     */
+    public void stop ()
+    {
+        started = false;
+        if (sampling == this){
+            sampling = null;
+            Arrays.fill(tickNanos, 0);
+        }
+    }
+
+    /**
+     * @return boolean  true if the profiler is sampling ticks
+     */
+    public boolean isStarted ()
+    {
+        return started;
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset ()
+    {
+        Arrays.fill(totalNanos, 0);
+        Arrays.fill(maxNanos, 0);
+        samples = 0;
+    }
+
+    /**
+     * @return long     how many ticks have been sampled
+     */
+    public long getSamples ()
+    {
+        return samples;
+    }
+
+    /**
+     * @return double   the average time (in ns) a section took in a sampled tick
+     */
+    public double getMean (int section)
+    {
+        return samples == 0 ? 0 : (double)totalNanos[section] / samples;
+    }
+
+    /**
+     * @return long     the longest time (in ns) a section took in one tick
+     */
+    public long getMax (int section)
+    {
+        return maxNanos[section];
+    }
+
+    /**
+     * @return String   the name of a section
+     */
+    public static String getName (int section)
+    {
+        return NAMES[section];
+    }
+
+    /**
+     * @return String   the report - one line per section that took any time, slowest first,
+     *                  with its average and longest time per tick and its share of the tick
+     */
+    public String getReport ()
+    {
+        long total = 0;
+        for (int i = 0; i < SECTIONS; i++){
+            total += totalNanos[i];
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Profile of %d sampled ticks (1 in %d) - mean %.3fms per tick%n",
+            samples, sampleEvery, samples == 0 ? 0 : total / 1000000.0 / samples));
+        for (int section : bySlowest()){
+            if (totalNanos[section] == 0){
+                break;
+            }
+            report.append(String.format("  %-30s mean: %8.3fms  max: %8.3fms  %5.1f%%%n", NAMES[section],
+                getMean(section) / 1000000.0, maxNanos[section] / 1000000.0, 100.0 * totalNanos[section] / total));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @return String   the few slowest sections on one short line (for showing on the screen)
+     */
+    public String getTopSections (int count)
+    {
+        StringBuilder line = new StringBuilder();
+        int[] order = bySlowest();
+        for (int k = 0; k < count && k < order.length && totalNanos[order[k]] > 0; k++){
+            if (k > 0){
+                line.append("  ");
+            }
+            line.append(String.format("%s %.2fms", NAMES[order[k]], getMean(order[k]) / 1000000.0));
+        }
+        return line.toString();
+    }
+
+    /**
+     * The sections, slowest (most total time) first.
+     */
+    private int[] bySlowest ()
+    {
+        int[] order = new int[SECTIONS];
+        for (int i = 0; i < SECTIONS; i++){
+            order[i] = i;
+        }
+        // Insertion sort - there are only a few sections
+        for (int i = 1; i < SECTIONS; i++){
+            int s = order[i];
+            int j = i - 1;
+            while (j >= 0 && totalNanos[order[j]] < totalNanos[s]){
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = s;
+        }
+        return order;
+    }
+}
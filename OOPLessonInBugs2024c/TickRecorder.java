@@ -0,0 +1,225 @@
+import java.util.Arrays;
+
+/**
+ * Keeps track of how long each tick (act) takes, using a fixed amount of memory no matter how
+ * long the simulation runs.
+ *
+ * <p>Two things are recorded:</p>
+ * <ul>
+ *  <li>The most recent ticks, in a ring buffer - once it is full, each new tick replaces the
+ *      oldest one. This is what printSlowTicks() looks through. The recent ticks also have a
+ *      histogram of their own (the oldest tick is taken out as each new one goes in), so the
+ *      p99 of just the last minute or so can be worked out without sorting anything.</li>
+ *  <li>Every tick ever, in a histogram. Rather than one bucket per possible time, the buckets get
+ *      wider as the times get longer (the same idea as HdrHistogram): each power of two is split
+ *      into 32 buckets, so any time is known to within about 3%. This is plenty to work out the
+ *      median (p50) and the slow tail (p99, p999) of the tick times.</li>
+ * </ul>
+ */
+public class TickRecorder
+{
+    // Each power of two is split into this many buckets (must be a power of two itself)
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Enough buckets for times up to 2^40 ns (about 18 minutes) - anything longer goes in the last one
+    private static final int MAX_SHIFT = 40 - SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+    // Recent ticks
+    private long[] recentNanos;
+    private int[] recentTicks;
+    private int[] recentBugs;
+    private int next;
+    private int recentCount;
+    private int[] recentBuckets;
+
+    // All ticks
+    private long[] buckets;
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * @param capacity  how many recent ticks to keep
+     */
+    public TickRecorder (int capacity)
+    {
+        recentNanos = new long[capacity];
+        recentTicks = new int[capacity];
+        recentBugs = new int[capacity];
+        recentBuckets = new int[BUCKET_COUNT];
+        buckets = new long[BUCKET_COUNT];
+    }
+
+    /**
+     * Record one tick.
+     *
+     * @param tick      the act number (from the act counter) of this tick
+     * @param nanos     how long it took
+     * @param bugs      how many Bugs there were
+     */
+    public void record (int tick, long nanos, int bugs)
+    {
+        if (nanos < 0){
+            nanos = 0;
+        }
+        if (recentCount == recentNanos.length){
+            recentBuckets[bucketFor(recentNanos[next])]--; // the oldest tick is about to be replaced
+        }
+        recentBuckets[bucketFor(nanos)]++;
+        recentNanos[next] = nanos;
+        recentTicks[next] = tick;
+        recentBugs[next] = bugs;
+        next = (next + 1) % recentNanos.length;
+        if (recentCount < recentNanos.length){
+            recentCount++;
+        }
+
+        buckets[bucketFor(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos){
+            maxNanos = nanos;
+        }
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset ()
+    {
+        next = 0;
+        recentCount = 0;
+        Arrays.fill(recentBuckets, 0);
+        Arrays.fill(buckets, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * @param percentile    from 0 to 100, for example 99.9 for p999
+     * @return long         the tick time (in ns) that this percentage of ticks took no longer than
+     */
+    public long getPercentile (double percentile)
+    {
+        if (count == 0){
+            return 0;
+        }
+        long wanted = (long)Math.ceil(count * Math.min(percentile, 100.0) / 100.0);
+        if (wanted < 1){
+            wanted = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++){
+            seen += buckets[i];
+            if (seen >= wanted){
+                return Math.min(highestInBucket(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * The same as getPercentile(), but only for the recent ticks.
+     *
+     * @param percentile    from 0 to 100, for example 99 for p99
+     * @return long         the tick time (in ns) that this percentage of recent ticks took no longer than
+     */
+    public long getRecentPercentile (double percentile)
+    {
+        if (recentCount == 0){
+            return 0;
+        }
+        long wanted = (long)Math.ceil(recentCount * Math.min(percentile, 100.0) / 100.0);
+        if (wanted < 1){
+            wanted = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++){
+            seen += recentBuckets[i];
+            if (seen >= wanted){
+                return Math.min(highestInBucket(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * @return long     the number of ticks recorded
+     */
+    public long getCount ()
+    {
+        return count;
+    }
+
+    /**
+     * @return long     the longest tick (in ns)
+     */
+    public long getMax ()
+    {
+        return maxNanos;
+    }
+
+    /**
+     * @return double   the average tick (in ns)
+     */
+    public double getMean ()
+    {
+        return count == 0 ? 0 : (double)totalNanos / count;
+    }
+
+    /**
+     * @return String   a one line summary of the tick times, in milliseconds
+     */
+    public String getSummary ()
+    {
+        return String.format("Ticks: %d  mean: %.2fms  p50: %.2fms  p99: %.2fms  p999: %.2fms  max: %.2fms",
+            count, getMean() / 1000000.0, getPercentile(50) / 1000000.0, getPercentile(99) / 1000000.0,
+            getPercentile(99.9) / 1000000.0, maxNanos / 1000000.0);
+    }
+
+    /**
+     * Print every recent tick that took longer than the given time, oldest first.
+     */
+    public void printSlowTicks (long thresholdNanos)
+    {
+        int oldest = (next - recentCount + recentNanos.length) % recentNanos.length;
+        for (int k = 0; k < recentCount; k++){
+            int i = (oldest + k) % recentNanos.length;
+            if (recentNanos[i] > thresholdNanos){
+                System.out.println("Act " + recentTicks[i] + " (Bugs = " + recentBugs[i] + "): " + recentNanos[i] / 1000000000.0);
+            }
+        }
+    }
+
+    /**
+     * Which bucket a time goes in. Times below SUB_BUCKETS get a bucket each; after that, each
+     * power of two gets SUB_BUCKETS buckets.
+     */
+    private static int bucketFor (long nanos)
+    {
+        if (nanos < SUB_BUCKETS){
+            return (int)nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT){
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int)(nanos >>> shift); // from SUB_BUCKETS to 2 * SUB_BUCKETS - 1
+        return (shift + 1) * SUB_BUCKETS + (sub - SUB_BUCKETS);
+    }
+
+    /**
+     * The longest time that would go in a bucket.
+     */
+    private static long highestInBucket (int bucket)
+    {
+        if (bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * A very small unit test harness, to go with Benchmark. A UnitTest checks one thing: run() does
+ * some work and calls check() (or one of the other check methods) on the results, which stops
+ * the test with a message as soon as something is wrong.
+ *
+ * <p>To write a test, extend this class and put the work in run(). See SimTests (for the parts
+ * that don't need Greenfoot) and WorldTests.</p>
+ */
+public abstract class UnitTest
+{
+    private String name;
+
+    public UnitTest (String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Do the test. Return normally if it passed, or throw (check() does this) if it failed.
+     */
+    public abstract void run () throws Exception;
+
+    public String getName ()
+    {
+        return name;
+    }
+
+    /**
+     * Fail the test, with a message, if the condition isn't true.
+     */
+    public static void check (boolean condition, String message)
+    {
+        if (!condition){
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fail the test if two numbers are different.
+     *
+     * @param what  what the numbers are, for the message
+     */
+    public static void checkEquals (long expected, long actual, String what)
+    {
+        if (expected != actual){
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Fail the test if two references aren't to the same object.
+     *
+     * @param what  what the objects are, for the message
+     */
+    public static void checkSame (Object expected, Object actual, String what)
+    {
+        if (expected != actual){
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Run every test, printing PASS or FAIL (and why) for each one.
+     *
+     * @return int  how many tests failed
+     */
+    public static int runAll (UnitTest[] tests)
+    {
+        int failed = 0;
+        for (UnitTest t : tests){
+            try {
+                t.run();
+                System.out.println("PASS  " + t.getName());
+            } catch (Throwable e) {
+                failed++;
+                System.out.println("FAIL  " + t.getName() + " - " + e);
+            }
+        }
+        System.out.println((tests.length - failed) + " of " + tests.length + " tests passed");
+        return failed;
+    }
+}
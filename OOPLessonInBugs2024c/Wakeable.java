@@ -0,0 +1,17 @@
+/**
+ * An Actor that usually has nothing to do. Instead of checking every act whether anything has
+ * changed, it is dormant (its act() does nothing, or it has no act() at all), and it is put into
+ * an ActiveSet when something happens that it needs to respond to - a Flower when it is
+ * nibbled, or an Egg when it cracks.
+ */
+public interface Wakeable
+{
+    /**
+     * Called by the ActiveSet this was woken in, the next time the set acts. Do whatever needs
+     * doing.
+     *
+     * @return boolean  true to stay awake for the next time the set acts, false to go back to
+     *                  being dormant until woken again
+     */
+    public boolean wakeAct ();
+}
@@ -0,0 +1,472 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.List;
+
+/**
+ * Benchmarks for the Greenfoot side of the simulation - everything that draws, sorts or moves
+ * Actors. These need Greenfoot to be running, so start them from inside Greenfoot by
+ * right-clicking this class and choosing runAll() (results are printed to the terminal window).
+ *
+ * <p>Headless benchmarks for the simulation rules are in SimBenchmarks.</p>
+ */
+public class WorldBenchmarks
+{
+    public static final int[] BUG_COUNTS = {100, 1000, 5000};
+    public static final int[] FLOWER_COUNTS = {20, 160};
+
+    public static void runAll ()
+    {
+        Bug.init();
+        Benchmark.runAll(new Benchmark[] {
+            new ZSort(),
+            new ZRepair(),
+            new StatBarUpdate(),
+            new MultiStatBarUpdate(),
+            new StringWidth(),
+            new StringWidthScan(),
+            new SmoothMove(),
+            new SmoothTurnTowards(),
+            new TurnAndPaint(false),
+            new TurnAndPaint(true),
+            new CountBugs(false),
+            new CountBugs(true),
+            new BugChurn(false),
+            new BugChurn(true),
+            new WorldAct()
+        }, BUG_COUNTS, FLOWER_COUNTS);
+    }
+
+    /**
+     * Create a DesertWorld with (roughly) the given number of Bugs and Flowers in it.
+     */
+    static DesertWorld createWorld (int bugs, int flowers)
+    {
+        DesertWorld world = new DesertWorld();
+        BugSimulation sim = world.getSimulation();
+        for (int i = 0; i < flowers; i++){
+            sim.spawnFlower();
+        }
+        for (int i = 0; i < bugs; i++){
+            sim.spawnBug();
+        }
+        return world;
+    }
+
+    /**
+     * An empty World and a plain SuperSmoothMover, for benchmarking movement on its own.
+     */
+    private static class EmptyWorld extends World
+    {
+        public EmptyWorld ()
+        {
+            super(800, 560, 1);
+        }
+    }
+
+    private static class PlainMover extends SuperSmoothMover
+    {
+    }
+
+    /**
+     * ZSorter.sort - sort every Flower and Bug at once, the way DesertWorld does when it isn't
+     * sorting incrementally. Nothing is removed and re-added.
+     */
+    private static class ZSort extends Benchmark
+    {
+        private DesertWorld world;
+
+        public ZSort ()
+        {
+            super("ZSorter.sort");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            world = createWorld(bugs, flowers);
+        }
+
+        public int run ()
+        {
+            world.getFlowerOrder().sort();
+            world.getBugOrder().sort();
+            return world.getFlowerOrder().size() + world.getBugOrder().size();
+        }
+    }
+
+    /**
+     * ZSorter.repair - after some Bugs have moved up or down a little, the way DesertWorld
+     * repairs the paint order every act.
+     */
+    private static class ZRepair extends Benchmark
+    {
+        private DesertWorld world;
+        private List<Bug> bugs;
+        private int next;
+
+        public ZRepair ()
+        {
+            super("ZSorter.repair (2% of Bugs moved)");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            world = createWorld(bugs, flowers);
+            world.getBugOrder().sort();
+            this.bugs = world.getObjects(Bug.class);
+            next = 0;
+        }
+
+        public int run ()
+        {
+            ZSorter order = world.getBugOrder();
+            for (int i = 0; i < bugs.size() / 50 + 1; i++){
+                next = (next + 1) % bugs.size();
+                Bug view = bugs.get(next);
+                SimEntity model = view.getModel();
+                model.setLocation(model.getX(), model.getY() + (next % 2 == 0 ? 3 : -3));
+                order.markMoved(view);
+            }
+            order.repair(DesertWorld.Z_REPAIR_BUDGET);
+            return order.getPendingCount();
+        }
+    }
+
+    /**
+     * SuperStatBar.update - with a new value every time. A single stat bar like this just picks
+     * an image from its shared strip instead of drawing one.
+     */
+    private static class StatBarUpdate extends Benchmark
+    {
+        private SuperStatBar bar;
+        private int value;
+
+        public StatBarUpdate ()
+        {
+            super("SuperStatBar.update (1 stat, shared strip)");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            bar = new SuperStatBar (BugSimulation.BUG_MAX_HP, BugSimulation.BUG_MAX_HP, null, 40, 8, -32, Color.GREEN, Color.RED, true, Color.YELLOW, 1);
+            value = 0;
+        }
+
+        public int run ()
+        {
+            value = (value + 37) % BugSimulation.BUG_MAX_HP;
+            bar.update(value);
+            return value;
+        }
+    }
+
+    /**
+     * SuperStatBar.update for a bar with two stats, which still draws its own image every time -
+     * to compare with the shared strips of StatBarUpdate.
+     */
+    private static class MultiStatBarUpdate extends Benchmark
+    {
+        private SuperStatBar bar;
+        private int[] values;
+
+        public MultiStatBarUpdate ()
+        {
+            super("SuperStatBar.update (2 stats, redrawn)");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            int max = BugSimulation.BUG_MAX_HP;
+            bar = new SuperStatBar (new int[]{max, max}, new int[]{max, max}, null, 40, 8, -32, new Color[]{Color.GREEN, Color.BLUE}, new Color[]{Color.RED, Color.GRAY}, true, Color.YELLOW, 1);
+            values = new int[2];
+        }
+
+        public int run ()
+        {
+            values[0] = (values[0] + 37) % BugSimulation.BUG_MAX_HP;
+            values[1] = (values[1] + 53) % BugSimulation.BUG_MAX_HP;
+            bar.update(values);
+            return values[0];
+        }
+    }
+
+    /**
+     * SuperDisplayLabel.getStringWidth - measuring a score bar's worth of text with the saved
+     * font metrics. The Strings are made ahead of time so that only the measuring is counted.
+     */
+    private static class StringWidth extends Benchmark
+    {
+        protected Font font;
+        protected String[] texts;
+        protected int next;
+
+        public StringWidth ()
+        {
+            this("SuperDisplayLabel.getStringWidth (saved metrics)");
+        }
+
+        protected StringWidth (String name)
+        {
+            super(name);
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            font = new Font ("Trebuchet", true, false, 24);
+            texts = new String[64];
+            for (int i = 0; i < texts.length; i++){
+                texts[i] = "N: " + (bugs + i) + " Max:  " + (bugs * 2 + i) + " Dead:  " + (i * 37) + " Avg. Life:  " + (1000 + i * 11);
+            }
+            next = 0;
+        }
+
+        public int run ()
+        {
+            next = (next + 1) % texts.length;
+            return SuperDisplayLabel.getStringWidth(font, texts[next]);
+        }
+    }
+
+    /**
+     * The same text, measured by drawing it and scanning the pixels - the way every label was
+     * measured before the font metrics were saved.
+     */
+    private static class StringWidthScan extends StringWidth
+    {
+        public StringWidthScan ()
+        {
+            super("SuperDisplayLabel.scanStringWidth (drawing)");
+        }
+
+        public int run ()
+        {
+            next = (next + 1) % texts.length;
+            return SuperDisplayLabel.scanStringWidth(font, texts[next]);
+        }
+    }
+
+    /**
+     * SuperSmoothMover.move - one small step, turning a little now and then.
+     */
+    private static class SmoothMove extends Benchmark
+    {
+        private PlainMover mover;
+        private int steps;
+
+        public SmoothMove ()
+        {
+            super("SuperSmoothMover.move");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            World world = new EmptyWorld();
+            mover = new PlainMover();
+            world.addObject(mover, 400, 280);
+            steps = 0;
+        }
+
+        public int run ()
+        {
+            if (++steps % 100 == 0){
+                mover.turn(91); // keep it wandering around instead of stuck on an edge
+            }
+            mover.move(2.0);
+            return mover.getX();
+        }
+    }
+
+    /**
+     * SuperSmoothMover.turnTowards - face a different point every time.
+     */
+    private static class SmoothTurnTowards extends Benchmark
+    {
+        private PlainMover mover;
+        private int target;
+
+        public SmoothTurnTowards ()
+        {
+            super("SuperSmoothMover.turnTowards");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            World world = new EmptyWorld();
+            mover = new PlainMover();
+            world.addObject(mover, 400, 280);
+            target = 0;
+        }
+
+        public int run ()
+        {
+            target = (target + 7) % 800;
+            mover.turnTowards(target, 560 - target % 560);
+            return mover.getRotation();
+        }
+    }
+
+    /**
+     * SuperSmoothMover.turn, then painting the Actor the way Greenfoot does (rotating the image
+     * as it is drawn, if the Actor is rotated) - with and without the rotation cache. With the
+     * cache on, the Actor is never rotated, and shows a copy of its image that was rotated ahead
+     * of time instead.
+     */
+    private static class TurnAndPaint extends Benchmark
+    {
+        private boolean cached;
+        private PlainMover mover;
+        private GreenfootImage canvas;
+
+        public TurnAndPaint (boolean cached)
+        {
+            super(cached ? "SuperSmoothMover.turn + paint (rotation cache)" : "SuperSmoothMover.turn + paint (Greenfoot rotates)");
+            this.cached = cached;
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            World world = new EmptyWorld();
+            GreenfootImage image = new GreenfootImage(30, 20);
+            image.setColor(Color.RED);
+            image.fillOval(0, 0, 30, 20);
+            mover = new PlainMover();
+            mover.setImage(image);
+            if (cached){
+                mover.enableRotationCache(DesertWorld.BUG_ROTATION_STEP);
+            }
+            world.addObject(mover, 400, 280);
+            canvas = new GreenfootImage(100, 100);
+        }
+
+        public int run ()
+        {
+            mover.turn(7);
+            GreenfootImage image = mover.getImage();
+            java.awt.Graphics2D g = canvas.getAwtImage().createGraphics();
+            if (mover.getRotation() != 0){
+                g.rotate(Math.toRadians(mover.getRotation()), 50, 50);
+            }
+            g.drawImage(image.getAwtImage(), 50 - image.getWidth() / 2, 50 - image.getHeight() / 2, null);
+            g.dispose();
+            return mover.getRotation();
+        }
+    }
+
+    /**
+     * Looping over every Bug (adding up their x coordinates) - with World.getObjects(), which
+     * makes a new List every time, or with the World's ActorRegistry, which hands back the same
+     * List.
+     */
+    private static class CountBugs extends Benchmark
+    {
+        private boolean registry;
+        private DesertWorld world;
+
+        public CountBugs (boolean registry)
+        {
+            super(registry ? "ActorRegistry.getAll(Bug) + loop" : "World.getObjects(Bug) + loop");
+            this.registry = registry;
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            world = createWorld(bugs, flowers);
+        }
+
+        public int run ()
+        {
+            List<Bug> bugs = registry ? world.getActors().getAll(Bug.class) : world.getObjects(Bug.class);
+            int total = 0;
+            for (int i = 0; i < bugs.size(); i++){
+                total += bugs.get(i).getX();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * A Bug being born and dying - adding a Bug (with its energy bar) to the World, then
+     * removing and releasing it - with a brand new Bug every time, or reusing one from an
+     * ActorPool the way DesertWorld does.
+     */
+    private static class BugChurn extends Benchmark
+    {
+        private boolean pooled;
+        private World world;
+        private SimBug model;
+        private ActorPool<Bug> pool;
+
+        public BugChurn (boolean pooled)
+        {
+            super(pooled ? "Bug add/remove (ActorPool)" : "Bug add/remove (new Bug)");
+            this.pooled = pooled;
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            // A plain World, so the Bugs don't schedule anything
+            world = new EmptyWorld();
+            model = createWorld(1, 0).getSimulation().getBugPopulation().getHandle(0);
+            pool = new ActorPool<Bug>(DesertWorld.POOL_SIZE);
+        }
+
+        public int run ()
+        {
+            Bug view = pooled ? pool.take() : null;
+            if (view == null){
+                view = new Bug(model);
+            } else {
+                view.reset(model);
+            }
+            world.addObject(view, model.getX(), model.getY());
+            world.removeObject(view);
+            view.release();
+            if (pooled){
+                pool.give(view);
+            }
+            return view.getX();
+        }
+    }
+
+    /**
+     * A full tick - DesertWorld.act() followed by act() for every Actor, the way Greenfoot
+     * runs one act. The population changes as it runs, so it is rebuilt (untimed) for every
+     * iteration, and an iteration is at most 600 ticks.
+     */
+    private static class WorldAct extends Benchmark
+    {
+        private DesertWorld world;
+        private int bugs, flowers;
+
+        public WorldAct ()
+        {
+            super("DesertWorld.act (full tick)");
+        }
+
+        public void setup (int bugs, int flowers)
+        {
+            this.bugs = bugs;
+            this.flowers = flowers;
+        }
+
+        public void setupIteration ()
+        {
+            world = createWorld(bugs, flowers);
+        }
+
+        public long getMaxOpsPerIteration ()
+        {
+            return 600;
+        }
+
+        public int run ()
+        {
+            world.act();
+            List<Actor> actors = world.getObjects(null);
+            for (Actor a : actors){
+                if (a.getWorld() != null){
+                    a.act();
+                }
+            }
+            return actors.size();
+        }
+    }
+}
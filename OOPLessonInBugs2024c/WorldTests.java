@@ -0,0 +1,134 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the Greenfoot side of the simulation. These need Greenfoot to be running, so
+ * start them from inside Greenfoot by right-clicking this class and choosing runAll() (results
+ * are printed to the terminal window).
+ *
+ * <p>Tests for the parts that don't need Greenfoot are in SimTests.</p>
+ */
+public class WorldTests
+{
+    public static void runAll ()
+    {
+        Bug.init();
+        UnitTest.runAll(new UnitTest[] {
+            new RegistryAddRemove(),
+            new RegistryMatchesWorld()
+        });
+    }
+
+    /**
+     * Two kinds of plain Actor, for filling an ActorRegistry.
+     */
+    private static class Red extends Actor
+    {
+    }
+
+    private static class Blue extends Actor
+    {
+    }
+
+    /**
+     * Check that a list holds exactly the same Actors as another (in any order).
+     */
+    static void checkSameActors (List<? extends Actor> expected, List<? extends Actor> actual, String what)
+    {
+        UnitTest.checkEquals(expected.size(), actual.size(), what + " - how many");
+        for (Actor a : expected){
+            UnitTest.check(actual.contains(a), what + " - missing " + a);
+        }
+    }
+
+    /**
+     * ActorRegistry keeps the same Actors as a plain list for each class, however they are added
+     * and removed - and adding twice or removing something that isn't there does nothing.
+     */
+    private static class RegistryAddRemove extends UnitTest
+    {
+        public RegistryAddRemove ()
+        {
+            super("ActorRegistry add, remove and count");
+        }
+
+        public void run ()
+        {
+            Random random = new Random(1);
+            ActorRegistry registry = new ActorRegistry();
+            ArrayList<Red> reds = new ArrayList<Red>();
+            ArrayList<Blue> blues = new ArrayList<Blue>();
+            for (int i = 0; i < 2000; i++){
+                int what = random.nextInt(5);
+                if (what == 0){
+                    Red red = new Red();
+                    registry.add(red);
+                    reds.add(red);
+                } else if (what == 1){
+                    Blue blue = new Blue();
+                    registry.add(blue);
+                    blues.add(blue);
+                } else if (what == 2 && reds.size() > 0){
+                    registry.remove(reds.remove(random.nextInt(reds.size())));
+                } else if (what == 3 && blues.size() > 0){
+                    registry.remove(blues.remove(random.nextInt(blues.size())));
+                } else if (reds.size() > 0){
+                    registry.add(reds.get(random.nextInt(reds.size()))); // already there
+                    registry.remove(new Red()); // never added
+                }
+                checkEquals(reds.size(), registry.count(Red.class), "Reds counted");
+                checkEquals(blues.size(), registry.count(Blue.class), "Blues counted");
+                checkEquals(reds.size() + blues.size(), registry.size(), "Actors counted");
+            }
+            checkSameActors(reds, registry.getAll(Red.class), "Reds");
+            checkSameActors(blues, registry.getAll(Blue.class), "Blues");
+            checkEquals(0, registry.count(Actor.class), "plain Actors (subclasses aren't listed)");
+        }
+    }
+
+    /**
+     * In a running DesertWorld, the registry lists the same Actors as getObjects(), for every
+     * class the World counts with it.
+     */
+    private static class RegistryMatchesWorld extends UnitTest
+    {
+        public RegistryMatchesWorld ()
+        {
+            super("ActorRegistry matches getObjects in a running DesertWorld");
+        }
+
+        public void run ()
+        {
+            DesertWorld world = WorldBenchmarks.createWorld(500, 60);
+            for (int tick = 0; tick < 300; tick++){
+                world.act();
+                List<Actor> actors = world.getObjects(null);
+                for (Actor a : actors){
+                    if (a.getWorld() != null){
+                        a.act();
+                    }
+                }
+            }
+            checkEquals(world.getObjects(Actor.class).size(), world.getActors().size(), "Actors");
+            checkClass(world, Bug.class);
+            checkClass(world, Flower.class);
+            checkClass(world, Egg.class);
+            checkClass(world, DeadBug.class);
+            checkClass(world, Frog.class);
+            checkClass(world, SuperStatBar.class);
+        }
+
+        private <T extends Actor> void checkClass (DesertWorld world, Class<T> cls)
+        {
+            ArrayList<T> exact = new ArrayList<T>();
+            for (T a : world.getObjects(cls)){
+                if (a.getClass() == cls){
+                    exact.add(a);
+                }
+            }
+            checkSameActors(exact, world.getActors().getAll(cls), cls.getName());
+        }
+    }
+}
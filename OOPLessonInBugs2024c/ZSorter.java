@@ -0,0 +1,296 @@
+import java.util.Arrays;
+
+/**
+ * A z-sort that doesn't allocate anything and doesn't remove and re-add any Actors.
+ *
+ * <p>Greenfoot paints Actors of the same class in the order they were added to the World. A
+ * ZSorter keeps a list of views (of one class) in that same order, and changes which model each
+ * view is showing so that the view Greenfoot paints first shows the model furthest up the
+ * screen, and so on.</p>
+ *
+ * <p>There are two ways to use one:</p>
+ * <ul>
+ *  <li>sort() - sorts everything at once, with a counting sort over the rows of the World.</li>
+ *  <li>repair() - call this every act. Only views that have been added, or whose y coordinate
+ *      has changed (see markMoved), are looked at, and each one is moved up or down the list
+ *      one step at a time until it is in place again. There is a limit on how much work is done
+ *      in one act; anything left over waits for the next act, so the cost is spread evenly
+ *      instead of all landing on one act.</li>
+ * </ul>
+ *
+ * <p>All of the working arrays are kept and reused, only growing if the number of views does.</p>
+ */
+public class ZSorter
+{
+    private SimView[] views;
+    private SimEntity[] sorted;
+    private int[] rowCounts;
+    private int size;
+    private int removedCount;
+
+    // Views that need to be checked by repair(), as slot numbers - any view that was added or
+    // moved, or has a new neighbour. A slot can be in the queue more than once (or not be dirty
+    // any more), so dirty[] has the final say.
+    private boolean[] dirty;
+    private int[] queue;
+    private int queueStart;
+    private int queueSize;
+    private boolean repairing;
+
+    /**
+     * @param worldHeight   the number of rows to sort over
+     */
+    public ZSorter (int worldHeight)
+    {
+        views = new SimView[64];
+        sorted = new SimEntity[64];
+        dirty = new boolean[64];
+        queue = new int[64];
+        rowCounts = new int[worldHeight + 1];
+    }
+
+    /**
+     * Add a view. Call this right after adding the view to the World, so the order here
+     * matches Greenfoot's.
+     */
+    public void add (SimView view)
+    {
+        if (size == views.length){
+            views = Arrays.copyOf(views, size * 2);
+            dirty = Arrays.copyOf(dirty, size * 2);
+            sorted = new SimEntity[size * 2];
+        }
+        view.setZIndex(size);
+        views[size] = view;
+        dirty[size] = false;
+        markDirty(size);
+        size++;
+    }
+
+    /**
+     * Remove a view. Its spot is left empty until enough spots are empty to be worth closing up.
+     */
+    public void remove (SimView view)
+    {
+        int index = view.getZIndex();
+        if (index >= 0 && index < size && views[index] == view){
+            views[index] = null;
+            dirty[index] = false;
+            view.setZIndex(-1);
+            removedCount++;
+            // The views either side are next to each other now, so check they are in order
+            int after = next(index);
+            if (after >= 0){
+                markDirty(after);
+            }
+        }
+    }
+
+    /**
+     * Tell this ZSorter that a view's y coordinate has changed, so it may be out of order.
+     */
+    public void markMoved (SimView view)
+    {
+        if (repairing){
+            return; // views moving because repair() swapped their models
+        }
+        int index = view.getZIndex();
+        if (index >= 0 && index < size && views[index] == view){
+            markDirty(index);
+        }
+    }
+
+    /**
+     * @return int  the number of views (including removed ones whose spots haven't been closed up)
+     */
+    public int size ()
+    {
+        return size;
+    }
+
+    /**
+     * @return int  the number of views waiting to be checked by repair()
+     */
+    public int getPendingCount ()
+    {
+        return queueSize;
+    }
+
+    /**
+     * Sort - afterwards, the views will show their models in order of y coordinate, from the
+     * top of the World to the bottom.
+     */
+    public void sort ()
+    {
+        closeGaps();
+
+        // Count how many models are on each row, then turn the counts into starting positions
+        Arrays.fill(rowCounts, 0);
+        for (int i = 0; i < size; i++){
+            rowCounts[row(views[i].getModel())]++;
+        }
+        int start = 0;
+        for (int r = 0; r < rowCounts.length; r++){
+            int count = rowCounts[r];
+            rowCounts[r] = start;
+            start += count;
+        }
+        // Place each model (this keeps models on the same row in the order they were in)
+        for (int i = 0; i < size; i++){
+            SimEntity model = views[i].getModel();
+            sorted[rowCounts[row(model)]++] = model;
+        }
+        // Hand them back out
+        repairing = true;
+        for (int i = 0; i < size; i++){
+            if (views[i].getModel() != sorted[i]){
+                views[i].setModel(sorted[i]);
+            }
+            sorted[i] = null;
+        }
+        repairing = false;
+
+        // Everything is in order now
+        Arrays.fill(dirty, 0, size, false);
+        queueStart = 0;
+        queueSize = 0;
+    }
+
+    /**
+     * Put views that were added or moved back in order, doing no more than the given amount of
+     * work. Checking a view counts as one unit of work, and so does each step it is moved.
+     *
+     * @param budget    the most work to do in this call
+     */
+    public void repair (int budget)
+    {
+        // Close up removed spots once there are enough of them (so this is rare, and cheap
+        // on average), otherwise just step over them
+        if (removedCount > 0 && removedCount >= size / 4){
+            closeGaps();
+        }
+        repairing = true;
+        while (budget > 0 && queueSize > 0){
+            int i = queue[queueStart];
+            queueStart = (queueStart + 1) % queue.length;
+            queueSize--;
+            budget--;
+            if (!dirty[i]){
+                continue; // already checked, or its model was moved to another slot
+            }
+            dirty[i] = false;
+            int y = views[i].getModel().getY();
+
+            // Move up while the one before is further down the screen
+            int before = previous(i);
+            while (budget > 0 && before >= 0 && views[before].getModel().getY() > y){
+                swap(i, before);
+                i = before;
+                before = previous(i);
+                budget--;
+            }
+            // ... or down while the one after is further up
+            int after = next(i);
+            while (budget > 0 && after >= 0 && views[after].getModel().getY() < y){
+                swap(i, after);
+                i = after;
+                after = next(i);
+                budget--;
+            }
+            if (budget == 0){
+                markDirty(i); // not done with this one - finish it next time
+            }
+        }
+        repairing = false;
+    }
+
+    /**
+     * Move the model being repaired from one view to the next one over, swapping it with the
+     * model that was there. That model now has a new neighbour, so it needs checking too.
+     */
+    private void swap (int from, int to)
+    {
+        SimEntity moving = views[from].getModel();
+        SimEntity other = views[to].getModel();
+        views[to].setModel(moving);
+        views[from].setModel(other);
+        dirty[to] = false;
+        dirty[from] = false;
+        markDirty(from);
+    }
+
+    private int previous (int i)
+    {
+        i--;
+        while (i >= 0 && views[i] == null){
+            i--;
+        }
+        return i;
+    }
+
+    private int next (int i)
+    {
+        i++;
+        while (i < size && views[i] == null){
+            i++;
+        }
+        return i < size ? i : -1;
+    }
+
+    private void markDirty (int i)
+    {
+        if (dirty[i]){
+            return;
+        }
+        dirty[i] = true;
+        if (queueSize == queue.length){
+            // Grow the queue, unwrapping it so it starts at 0
+            int[] bigger = new int[queue.length * 2];
+            for (int k = 0; k < queueSize; k++){
+                bigger[k] = queue[(queueStart + k) % queue.length];
+            }
+            queue = bigger;
+            queueStart = 0;
+        }
+        queue[(queueStart + queueSize) % queue.length] = i;
+        queueSize++;
+    }
+
+    private int row (SimEntity model)
+    {
+        int y = model.getY();
+        if (y < 0) return 0;
+        if (y >= rowCounts.length) return rowCounts.length - 1;
+        return y;
+    }
+
+    /**
+     * Take out the spots left by removed views, keeping everything else in order. The views
+     * waiting to be checked are moved along with them.
+     */
+    private void closeGaps ()
+    {
+        if (removedCount == 0){
+            return;
+        }
+        removedCount = 0;
+        queueStart = 0;
+        queueSize = 0;
+        int kept = 0;
+        for (int i = 0; i < size; i++){
+            if (views[i] != null){
+                boolean wasDirty = dirty[i];
+                dirty[i] = false;
+                views[kept] = views[i];
+                views[kept].setZIndex(kept);
+                if (wasDirty){
+                    markDirty(kept);
+                }
+                kept++;
+            }
+        }
+        Arrays.fill(views, kept, size, null);
+        Arrays.fill(dirty, kept, size, false);
+        size = kept;
+    }
+}